@@ -28,21 +28,30 @@ package com.wickr.java;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.node.TextNode;
 import com.wickr.java.http.WickrAuthentication;
+import com.wickr.java.http.WickrHttpTransport;
 import com.wickr.java.model.*;
 import com.wickr.java.util.HttpUtils;
 import com.wickr.java.util.JsonUtils;
 import com.wickr.java.util.StringUtils;
 import org.apache.hc.client5.http.auth.AuthScheme;
+import org.apache.hc.client5.http.entity.mime.ContentBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -76,6 +85,12 @@ public class WickrBot implements Comparable<WickrBot> {
 
     private static final Logger logger = LoggerFactory.getLogger(WickrBot.class);
 
+    /**
+     * endpoints without path parameters, resolved once when the container or api key changes
+     */
+    private static final List<String> FIXED_ENDPOINTS = List.of(
+            "/Statistics", "/Messages", "/File", "/GroupConvo", "/Rooms", "/MsgRecvCallback");
+
     private final String user;
 
     private String password;
@@ -92,6 +107,12 @@ public class WickrBot implements Comparable<WickrBot> {
 
     private boolean useSSL = false;
 
+    private WickrHttpTransport transport;
+
+    private volatile String containerUrl;
+
+    private volatile Map<String, URI> endpoints = Collections.emptyMap();
+
     public WickrBot(
             final String user, final String pwd,
             final String apiKey, final String apiToken,
@@ -168,6 +189,7 @@ public class WickrBot implements Comparable<WickrBot> {
         this.containerHost = host;
         this.containerPort = port;
         this.useSSL = ssl;
+        this.updateEndpoints();
         return this;
     }
 
@@ -179,9 +201,22 @@ public class WickrBot implements Comparable<WickrBot> {
         } else {
             this.authentication = null;
         }
+        this.updateEndpoints();
         return this;
     }
 
+    /**
+     * send requests over the given transport, or the transport shared by the jvm when null
+     */
+    public WickrBot withTransport(final WickrHttpTransport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    public WickrHttpTransport getTransport() {
+        return transport;
+    }
+
     public boolean isAvailable() {
         try {
             final Statistics status = this.getStatistics();
@@ -219,17 +254,23 @@ public class WickrBot implements Comparable<WickrBot> {
     public Statistics getStatistics() throws IOException {
         try {
             final URI endpoint = this.getContainerUrlFor("/Statistics");
-            final StatisticsResponse statusResponse = HttpUtils.getJson(endpoint, StatisticsResponse.class, this.authentication);
+            final StatisticsResponse statusResponse = HttpUtils.getJson(this.transport, endpoint, StatisticsResponse.class, this.authentication);
             return statusResponse != null ? statusResponse.getStatistics() : Statistics.createEmpty();
         } catch (final Exception e) {
             throw new IOException("Unable to query statistics for bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<Statistics> getStatisticsAsync() {
+        return this.async("Unable to query statistics for bot [" + this.user + "].",
+                () -> HttpUtils.getJsonAsync(this.transport, this.getContainerUrlFor("/Statistics"), StatisticsResponse.class, this.authentication)
+                        .thenApply((statusResponse) -> statusResponse != null ? statusResponse.getStatistics() : Statistics.createEmpty()));
+    }
+
     public void clearStatistics() throws IOException {
         try {
             final URI endpoint = this.getContainerUrlFor("/Statistics");
-            final String response = HttpUtils.delete(endpoint, this.authentication);
+            final String response = HttpUtils.delete(this.transport, endpoint, this.authentication);
             logger.debug("Statistics for [" + this + "] cleared, response was [" + response + "].");
         } catch (final Exception e) {
             throw new IOException("Unable to clear statistics for bot [" + this.user + "].", e);
@@ -241,6 +282,47 @@ public class WickrBot implements Comparable<WickrBot> {
     }
 
     public List<Message> getUnreadMessages(final int start, final int count) throws IOException {
+        try {
+            // https://<host>:<port>/WickrIO/V1/Apps/<API Key>/Messages?start=<index>&count=<number>
+            final List<Message> messages = HttpUtils.getJsonList(this.transport, this.getContainerUrlFor(messagesRequestFor(start, count)), Message.class, this.authentication);
+            return messages != null ? messages : Collections.emptyList();
+        } catch (final Exception e) {
+            throw new IOException("Unable to get unread messages for bot [" + this.user + "].", e);
+        }
+    }
+
+    public CompletableFuture<List<Message>> getUnreadMessagesAsync() {
+        return this.getUnreadMessagesAsync(-1, -1);
+    }
+
+    public CompletableFuture<List<Message>> getUnreadMessagesAsync(final int start, final int count) {
+        return this.async("Unable to get unread messages for bot [" + this.user + "].",
+                () -> HttpUtils.getAsync(this.transport, this.getContainerUrlFor(messagesRequestFor(start, count)), this.authentication)
+                        .thenApply((json) -> {
+                            try {
+                                final List<Message> messages = JsonUtils.toEntityList(json, Message.class);
+                                return messages != null ? messages : Collections.<Message>emptyList();
+                            } catch (final IOException e) {
+                                throw new CompletionException(e);
+                            }
+                        }));
+    }
+
+    /**
+     * stream unread messages to the consumer as each one is parsed, skipping any malformed messages, and return
+     * the number of elements in the response, including malformed ones, so callers paging through unread messages
+     * can tell a short page from one with skipped messages
+     */
+    public int getUnreadMessages(final int start, final int count, final Consumer<Message> consumer) throws IOException {
+        try {
+            return HttpUtils.getStream(this.transport, this.getContainerUrlFor(messagesRequestFor(start, count)), this.authentication,
+                    (input) -> JsonUtils.forEachInList(input, Message.class, consumer));
+        } catch (final Exception e) {
+            throw new IOException("Unable to get unread messages for bot [" + this.user + "].", e);
+        }
+    }
+
+    private static String messagesRequestFor(final int start, final int count) {
         final StringBuilder request = new StringBuilder("/Messages");
         boolean firstParam = true;
         if (start > 0) {
@@ -248,18 +330,9 @@ public class WickrBot implements Comparable<WickrBot> {
             firstParam = false;
         }
         if (count > 0) {
-            if (firstParam) {
-                request.append("?");
-            }
-            request.append("count=").append(count);
-        }
-        try {
-            // https://<host>:<port>/WickrIO/V1/Apps/<API Key>/Messages?start=<index>&count=<number>
-            final String json = HttpUtils.get(this.getContainerUrlFor(request.toString()), this.authentication);
-            return JsonUtils.toEntityList(json, Message.class);
-        } catch (final Exception e) {
-            throw new IOException("Unable to get unread messages for bot [" + this.user + "].", e);
+            request.append(firstParam ? "?" : "&").append("count=").append(count);
         }
+        return request.toString();
     }
 
     public boolean sendMessage(final Message message) throws IOException {
@@ -267,13 +340,22 @@ public class WickrBot implements Comparable<WickrBot> {
             return false;
         }
         try {
-            final String response = HttpUtils.postJson(this.getContainerUrlFor("/Messages"), message, this.authentication);
+            final String response = HttpUtils.postJson(this.transport, this.getContainerUrlFor("/Messages"), message, this.authentication);
             return response != null && !response.isBlank();
         } catch (final Exception e) {
             throw new IOException("Unable to send message for bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<Boolean> sendMessageAsync(final Message message) {
+        if (null == message) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return this.async("Unable to send message for bot [" + this.user + "].",
+                () -> HttpUtils.postJsonAsync(this.transport, this.getContainerUrlFor("/Messages"), message, this.authentication)
+                        .thenApply((response) -> response != null && !response.isBlank()));
+    }
+
     public boolean sendMessageToUser(final String message, final String... recipients) throws IOException {
         if (null == message || message.isBlank()) {
             return false;
@@ -288,6 +370,20 @@ public class WickrBot implements Comparable<WickrBot> {
         return this.sendMessage(Message.createGroupMessage(message, groupId));
     }
 
+    public CompletableFuture<Boolean> sendMessageToUserAsync(final String message, final String... recipients) {
+        if (null == message || message.isBlank()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return this.sendMessageAsync(Message.createDirectMessage(message, recipients));
+    }
+
+    public CompletableFuture<Boolean> sendMessageToGroupAsync(final String message, final String groupId) {
+        if (null == message || message.isBlank()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return this.sendMessageAsync(Message.createGroupMessage(message, groupId));
+    }
+
     public boolean sendFileToUser(final File file, final String... recipients) throws IOException {
         if (null == file) {
             return false;
@@ -303,11 +399,63 @@ public class WickrBot implements Comparable<WickrBot> {
         return this.sendFileToUsersOrGroup(file, Collections.emptyList(), groupId);
     }
 
-    private boolean sendFileToUsersOrGroup(final File file, final Collection<String> users, final String groupId) throws IOException {
+    public boolean sendFileToUser(final Path file, final String... recipients) throws IOException {
+        if (null == file) {
+            return false;
+        }
+        return this.sendFileToUsers(file, Arrays.asList(recipients));
+    }
+
+    /**
+     * send the file, streamed from disk through its channel rather than read onto the heap
+     */
+    public boolean sendFileToUsers(final Path file, final Collection<String> users) throws IOException {
+        return this.sendFileToUsersOrGroup(file, users, null);
+    }
+
+    public boolean sendFileToGroup(final Path file, final String groupId) throws IOException {
+        return this.sendFileToUsersOrGroup(file, Collections.emptyList(), groupId);
+    }
+
+    /**
+     * send exactly length bytes read from the stream as the named file, the stream is not closed
+     */
+    public boolean sendFileToUsers(final InputStream input, final long length, final String filename, final Collection<String> users) throws IOException {
+        if (null == input) {
+            return false;
+        }
+        return this.sendFileToUsersOrGroup(HttpUtils.streamBody(input, length, filename), users, null);
+    }
+
+    public boolean sendFileToGroup(final InputStream input, final long length, final String filename, final String groupId) throws IOException {
+        if (null == input) {
+            return false;
+        }
+        return this.sendFileToUsersOrGroup(HttpUtils.streamBody(input, length, filename), Collections.emptyList(), groupId);
+    }
+
+    /**
+     * send the remaining bytes of the buffer as the named file, the buffer position is left unchanged
+     */
+    public boolean sendFileToUsers(final ByteBuffer buffer, final String filename, final Collection<String> users) throws IOException {
+        if (null == buffer) {
+            return false;
+        }
+        return this.sendFileToUsersOrGroup(HttpUtils.bufferBody(buffer, filename), users, null);
+    }
+
+    public boolean sendFileToGroup(final ByteBuffer buffer, final String filename, final String groupId) throws IOException {
+        if (null == buffer) {
+            return false;
+        }
+        return this.sendFileToUsersOrGroup(HttpUtils.bufferBody(buffer, filename), Collections.emptyList(), groupId);
+    }
+
+    private boolean sendFileToUsersOrGroup(final Object file, final Collection<String> users, final String groupId) throws IOException {
         return this.sendFileToUsersOrGroup(file, users, groupId, -1, -1);
     }
 
-    private boolean sendFileToUsersOrGroup(final File file, final Collection<String> users, final String groupId, final int bor, final int ttl) throws IOException {
+    private boolean sendFileToUsersOrGroup(final Object file, final Collection<String> users, final String groupId, final int bor, final int ttl) throws IOException {
         if (null == file) {
             return false;
         }
@@ -333,8 +481,8 @@ public class WickrBot implements Comparable<WickrBot> {
                 request.put("ttl", ttl);
             }
             request.put("attachment", file);
-            final String response = HttpUtils.postForm(this.getContainerUrlFor("/File"), request, this.authentication);
-            logger.debug("File [" + file + "] sent by [" + this + "], response was [" + response + "].");
+            final String response = HttpUtils.postForm(this.transport, this.getContainerUrlFor("/File"), request, this.authentication);
+            logger.debug("File [" + (file instanceof ContentBody ? ((ContentBody) file).getFilename() : file) + "] sent by [" + this + "], response was [" + response + "].");
             return response != null && !response.isBlank();
         } catch (final Exception e) {
             throw new IOException("Unable to create group conversation for bot [" + this.user + "].", e);
@@ -350,30 +498,59 @@ public class WickrBot implements Comparable<WickrBot> {
             return null;
         }
         try {
-            final List<User> users = members.stream().map(User::new).collect(Collectors.toList());
-            if (users.isEmpty()) {
-                throw new IllegalStateException("User list is empty, unable to create group.");
-            }
-            users.add(new User(this.user));
-            final Map<String, Object> membersElement = new HashMap<>(1);
-            final Map<String, Object> request = new HashMap<>(1);
-            membersElement.put("members", new LinkedHashSet<>(users));
-            request.put("groupconvo", membersElement);
-            final String response = HttpUtils.postJson(this.getContainerUrlFor("/GroupConvo"), request, this.authentication);
-            if (null == response || response.isBlank()) {
-                return null;
-            }
-            final Map roomInfo = JsonUtils.toEntity(response, Map.class);
-            final Object vgroupid = roomInfo.get("vgroupid");
-            return vgroupid != null ? vgroupid.toString() : null;
+            final String response = HttpUtils.postJson(this.transport, this.getContainerUrlFor("/GroupConvo"), this.groupRequestFor(members), this.authentication);
+            return vgroupidFrom(response);
         } catch (final Exception e) {
             throw new IOException("Unable to create group conversation for bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<String> createGroupAsync(final String... members) {
+        return this.createGroupAsync(Arrays.asList(members));
+    }
+
+    public CompletableFuture<String> createGroupAsync(final List<String> members) {
+        if (null == members || members.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.async("Unable to create group conversation for bot [" + this.user + "].",
+                () -> HttpUtils.postJsonAsync(this.transport, this.getContainerUrlFor("/GroupConvo"), this.groupRequestFor(members), this.authentication)
+                        .thenApply(WickrBot::vgroupidFromResponse));
+    }
+
+    private Map<String, Object> groupRequestFor(final List<String> members) {
+        final List<User> users = members.stream().map(User::new).collect(Collectors.toList());
+        if (users.isEmpty()) {
+            throw new IllegalStateException("User list is empty, unable to create group.");
+        }
+        users.add(new User(this.user));
+        final Map<String, Object> membersElement = new HashMap<>(1);
+        final Map<String, Object> request = new HashMap<>(1);
+        membersElement.put("members", new LinkedHashSet<>(users));
+        request.put("groupconvo", membersElement);
+        return request;
+    }
+
+    private static String vgroupidFrom(final String response) throws IOException {
+        if (null == response || response.isBlank()) {
+            return null;
+        }
+        final Map roomInfo = JsonUtils.toEntity(response, Map.class);
+        final Object vgroupid = roomInfo.get("vgroupid");
+        return vgroupid != null ? vgroupid.toString() : null;
+    }
+
+    private static String vgroupidFromResponse(final String response) {
+        try {
+            return vgroupidFrom(response);
+        } catch (final IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
     public List<Group> getGroups() throws IOException {
         try {
-            final GroupList groupList = HttpUtils.getJson(this.getContainerUrlFor("/GroupConvo"), GroupList.class, this.authentication);
+            final GroupList groupList = HttpUtils.getJson(this.transport, this.getContainerUrlFor("/GroupConvo"), GroupList.class, this.authentication);
             if (null == groupList || groupList.getGroups().isEmpty()) {
                 return Collections.emptyList();
             }
@@ -383,46 +560,65 @@ public class WickrBot implements Comparable<WickrBot> {
         }
     }
 
+    public CompletableFuture<List<Group>> getGroupsAsync() {
+        return this.async("Unable to query group conversations visible to bot [" + this.user + "].",
+                () -> HttpUtils.getJsonAsync(this.transport, this.getContainerUrlFor("/GroupConvo"), GroupList.class, this.authentication)
+                        .thenApply((groupList) -> null == groupList || groupList.getGroups().isEmpty() ? Collections.<Group>emptyList() : groupList.getGroups()));
+    }
+
     public Group getGroup(final String vGroupID) throws IOException {
         try {
-            return HttpUtils.getJson(this.getContainerUrlFor("/GroupConvo/" + vGroupID), Group.class, this.authentication);
+            return HttpUtils.getJson(this.transport, this.getContainerUrlFor("/GroupConvo/" + vGroupID), Group.class, this.authentication);
         } catch (final Exception e) {
             throw new IOException("Unable to get group conversation [" + vGroupID + "] visible to bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<Group> getGroupAsync(final String vGroupID) {
+        return this.async("Unable to get group conversation [" + vGroupID + "] visible to bot [" + this.user + "].",
+                () -> HttpUtils.getJsonAsync(this.transport, this.getContainerUrlFor("/GroupConvo/" + vGroupID), Group.class, this.authentication));
+    }
+
     public void deleteGroup(final String vGroupID) throws IOException {
         try {
             // https://<host>:<port>/WickrIO/V1/Apps/<API Key>/GroupConvo/<vGroupID>
-            final String response = HttpUtils.delete(this.getContainerUrlFor("/GroupConvo/" + vGroupID), this.authentication);
+            final String response = HttpUtils.delete(this.transport, this.getContainerUrlFor("/GroupConvo/" + vGroupID), this.authentication);
             logger.debug("Group conversation [" + vGroupID + "] deleted by [" + this + "], response was [" + response + "].");
         } catch (final Exception e) {
             throw new IOException("Unable to delete group conversation for bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<Void> deleteGroupAsync(final String vGroupID) {
+        return this.async("Unable to delete group conversation for bot [" + this.user + "].",
+                () -> HttpUtils.deleteAsync(this.transport, this.getContainerUrlFor("/GroupConvo/" + vGroupID), this.authentication)
+                        .thenAccept((response) -> logger.debug("Group conversation [" + vGroupID + "] deleted by [" + this + "], response was [" + response + "].")));
+    }
+
     public String createRoom(final Room room) throws IOException {
         if (null == room) {
             return null;
         }
         try {
-            final Map<String, Object> request = new HashMap<>(1);
-            request.put("room", room);
-            final String response = HttpUtils.postJson(this.getContainerUrlFor("/Rooms"), request, this.authentication);
-            if (null == response || response.isBlank()) {
-                return null;
-            }
-            final Map roomInfo = JsonUtils.toEntity(response, Map.class);
-            final Object vgroupid = roomInfo.get("vgroupid");
-            return vgroupid != null ? vgroupid.toString() : null;
+            final String response = HttpUtils.postJson(this.transport, this.getContainerUrlFor("/Rooms"), Collections.singletonMap("room", room), this.authentication);
+            return vgroupidFrom(response);
         } catch (final Exception e) {
             throw new IOException("Unable to create secure room for bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<String> createRoomAsync(final Room room) {
+        if (null == room) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.async("Unable to create secure room for bot [" + this.user + "].",
+                () -> HttpUtils.postJsonAsync(this.transport, this.getContainerUrlFor("/Rooms"), Collections.singletonMap("room", room), this.authentication)
+                        .thenApply(WickrBot::vgroupidFromResponse));
+    }
+
     public List<Room> getRooms() throws IOException {
         try {
-            final RoomList roomList = HttpUtils.getJson(this.getContainerUrlFor("/Rooms"), RoomList.class, this.authentication);
+            final RoomList roomList = HttpUtils.getJson(this.transport, this.getContainerUrlFor("/Rooms"), RoomList.class, this.authentication);
             if (null == roomList || roomList.getRooms().isEmpty()) {
                 return Collections.emptyList();
             }
@@ -432,37 +628,84 @@ public class WickrBot implements Comparable<WickrBot> {
         }
     }
 
+    public CompletableFuture<List<Room>> getRoomsAsync() {
+        return this.async("Unable to query secure rooms visible to bot [" + this.user + "].",
+                () -> HttpUtils.getJsonAsync(this.transport, this.getContainerUrlFor("/Rooms"), RoomList.class, this.authentication)
+                        .thenApply((roomList) -> null == roomList || roomList.getRooms().isEmpty() ? Collections.<Room>emptyList() : roomList.getRooms()));
+    }
+
     public Room getRoom(final String vGroupID) throws IOException {
         try {
-            return HttpUtils.getJson(this.getContainerUrlFor("/Rooms/" + vGroupID), Room.class, this.authentication);
+            return HttpUtils.getJson(this.transport, this.getContainerUrlFor("/Rooms/" + vGroupID), Room.class, this.authentication);
         } catch (final Exception e) {
             throw new IOException("Unable to get secure room [" + vGroupID + "] visible to bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<Room> getRoomAsync(final String vGroupID) {
+        return this.async("Unable to get secure room [" + vGroupID + "] visible to bot [" + this.user + "].",
+                () -> HttpUtils.getJsonAsync(this.transport, this.getContainerUrlFor("/Rooms/" + vGroupID), Room.class, this.authentication));
+    }
+
     public void leaveRoom(final String vGroupID) throws IOException {
         try {
             // https://<host>:<port>/WickrIO/V1/Apps/<API Key>/Rooms/<vGroupID>?reason=leave
-            final String response = HttpUtils.delete(this.getContainerUrlFor("/Rooms/" + vGroupID + "?reason=leave"), this.authentication);
+            final String response = HttpUtils.delete(this.transport, this.getContainerUrlFor("/Rooms/" + vGroupID + "?reason=leave"), this.authentication);
             logger.debug("Room [" + vGroupID + "] left by [" + this + "], response was [" + response + "].");
         } catch (final Exception e) {
             throw new IOException("Unable to leave secure room for bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<Void> leaveRoomAsync(final String vGroupID) {
+        return this.async("Unable to leave secure room for bot [" + this.user + "].",
+                () -> HttpUtils.deleteAsync(this.transport, this.getContainerUrlFor("/Rooms/" + vGroupID + "?reason=leave"), this.authentication)
+                        .thenAccept((response) -> logger.debug("Room [" + vGroupID + "] left by [" + this + "], response was [" + response + "].")));
+    }
+
     public void deleteRoom(final String vGroupID) throws IOException {
         try {
             // https://<host>:<port>/WickrIO/V1/Apps/<API Key>/Rooms/<vGroupID>
-            final String response = HttpUtils.delete(this.getContainerUrlFor("/Rooms/" + vGroupID), this.authentication);
+            final String response = HttpUtils.delete(this.transport, this.getContainerUrlFor("/Rooms/" + vGroupID), this.authentication);
             logger.debug("Room [" + vGroupID + "] deleted by [" + this + "], response was [" + response + "].");
         } catch (final Exception e) {
             throw new IOException("Unable to delete secure room for bot [" + this.user + "].", e);
         }
     }
 
+    public CompletableFuture<Void> deleteRoomAsync(final String vGroupID) {
+        return this.async("Unable to delete secure room for bot [" + this.user + "].",
+                () -> HttpUtils.deleteAsync(this.transport, this.getContainerUrlFor("/Rooms/" + vGroupID), this.authentication)
+                        .thenAccept((response) -> logger.debug("Room [" + vGroupID + "] deleted by [" + this + "], response was [" + response + "].")));
+    }
+
+    /**
+     * start a non-blocking request, failing the returned future with an io exception carrying the same message as
+     * the blocking variant of the call
+     */
+    private <T> CompletableFuture<T> async(final String failure, final Callable<CompletableFuture<T>> request) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final CompletableFuture<T> pending;
+        try {
+            pending = request.call();
+        } catch (final Exception e) {
+            result.completeExceptionally(new IOException(failure, e));
+            return result;
+        }
+        pending.whenComplete((value, e) -> {
+            if (null == e) {
+                result.complete(value);
+            } else {
+                final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                result.completeExceptionally(new IOException(failure, cause));
+            }
+        });
+        return result;
+    }
+
     public String getEventCallback() throws Exception {
         final URI endpoint = this.getContainerUrlFor("/MsgRecvCallback");
-        String json = HttpUtils.get(endpoint, this.authentication);
+        String json = HttpUtils.get(this.transport, endpoint, this.authentication);
         if (null == json || json.isEmpty()) {
             throw new IllegalStateException("Found empty response from rest api.");
         } else if (json.endsWith(")")) {
@@ -481,33 +724,54 @@ public class WickrBot implements Comparable<WickrBot> {
 
     public void clearEventCallback() throws Exception {
         final URI endpoint = this.getContainerUrlFor("/MsgRecvCallback");
-        final String response = HttpUtils.delete(endpoint, this.authentication);
+        final String response = HttpUtils.delete(this.transport, endpoint, this.authentication);
         logger.debug("Event callback for [" + this + "] cleared, response was [" + response + "].");
     }
 
     public void setEventCallback(final String url) throws Exception {
         // https://<host>:<port>/WickrIO/V1/Apps/<API Key>/MsgRecvCallback?callbackurl=<url>
         final URI endpoint = this.getContainerUrlFor("/MsgRecvCallback?callbackurl=" + URLEncoder.encode(url, StandardCharsets.US_ASCII));
-        final String response = HttpUtils.post(endpoint, this.authentication);
+        final String response = HttpUtils.post(this.transport, endpoint, this.authentication);
         logger.debug("Event callback for [" + this + "] set to [" + url + "], response was [" + response + "].");
     }
 
     private URI getContainerUrlFor(final String endpoint) {
-        if (null == this.containerHost) {
-            return null;
+        final URI fixed = this.endpoints.get(endpoint);
+        if (fixed != null) {
+            return fixed;
         }
-        // https://<host>:<port>/WickrIO/V1/Apps/<API Key>/<endpoint>
-        String url = (this.useSSL ? "https://" : "http://") + this.containerHost + (this.containerPort > 0 ? (":" + this.containerPort) : "") + "/WickrIO/V1/Apps/" + this.apiKey;
-        if (!endpoint.startsWith("/")) {
-            url += "/";
+        final String url = this.containerUrl;
+        if (null == url) {
+            return null;
         }
         try {
-            return new URI(url + endpoint);
+            return new URI(endpoint.startsWith("/") ? url + endpoint : url + "/" + endpoint);
         } catch (final URISyntaxException e) {
             throw new IllegalArgumentException("Unable to build container URL for endpoint.", e);
         }
     }
 
+    private void updateEndpoints() {
+        if (null == this.containerHost) {
+            this.containerUrl = null;
+            this.endpoints = Collections.emptyMap();
+            return;
+        }
+        // https://<host>:<port>/WickrIO/V1/Apps/<API Key>/<endpoint>
+        final String url = (this.useSSL ? "https://" : "http://") + this.containerHost + (this.containerPort > 0 ? (":" + this.containerPort) : "") + "/WickrIO/V1/Apps/" + this.apiKey;
+        final Map<String, URI> table = new HashMap<>(FIXED_ENDPOINTS.size() * 2);
+        try {
+            for (final String endpoint : FIXED_ENDPOINTS) {
+                table.put(endpoint, new URI(url + endpoint));
+            }
+        } catch (final URISyntaxException e) {
+            // leave the table empty, each request reports the bad url
+            table.clear();
+        }
+        this.containerUrl = url;
+        this.endpoints = Collections.unmodifiableMap(table);
+    }
+
     @Override
     public String toString() {
         return this.user;
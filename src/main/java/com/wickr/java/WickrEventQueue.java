@@ -27,6 +27,7 @@ package com.wickr.java;
 
 import com.wickr.java.model.Message;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -41,10 +42,69 @@ public interface WickrEventQueue extends WickrComponent {
 
     boolean add(WickrEvent event);
 
+    /**
+     * add an event only if it can be done without waiting, queues that cannot tell fall back to {@link #add}
+     */
+    default boolean tryAdd(WickrBot bot, Message message) {
+        return this.tryAdd(new WickrEvent(bot, message));
+    }
+
+    default boolean tryAdd(WickrEvent event) {
+        return this.add(event);
+    }
+
     WickrEvent remove(int timeout, TimeUnit unit) throws InterruptedException;
 
     default WickrEvent remove() throws InterruptedException {
         return remove(-1, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * remove up to the given number of events, waiting up to the timeout for them to arrive, or waiting for at
+     * least one event if there is no timeout
+     */
+    default int drainTo(final Collection<? super WickrEvent> events, final int maxEvents, final int timeout, final TimeUnit unit) throws InterruptedException {
+        if (maxEvents <= 0) {
+            return 0;
+        }
+        final WickrEvent first = this.remove(timeout, unit);
+        if (null == first) {
+            return 0;
+        }
+        events.add(first);
+        int count = 1;
+        final long deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : System.nanoTime();
+        while (count < maxEvents) {
+            final long remaining = Math.max(1, Math.min(deadline - System.nanoTime(), Integer.MAX_VALUE));
+            final WickrEvent event = this.remove((int) remaining, TimeUnit.NANOSECONDS);
+            if (null == event) {
+                break;
+            }
+            events.add(event);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * the number of events waiting to be removed, or -1 if this queue cannot tell
+     */
+    default int size() {
+        return -1;
+    }
+
+    /**
+     * true if no events are waiting to be removed, queues that cannot tell are never considered empty
+     */
+    default boolean isEmpty() {
+        return 0 == this.size();
+    }
+
+    /**
+     * mark an event returned by this queue as fully processed, queues that retain events may then release it
+     */
+    default void acknowledge(WickrEvent event) {
+
+    }
+
 }
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java;
+
+import com.wickr.java.impl.PlatformWickrExecutorFactory;
+import com.wickr.java.impl.VirtualWickrExecutorFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * creates the threads used by the wickr-io library for dispatching events and blocking i/o
+ *
+ * @date 10/17/26.
+ */
+public interface WickrExecutorFactory {
+
+    static WickrExecutorFactory platform() {
+        return PlatformWickrExecutorFactory.INSTANCE;
+    }
+
+    /**
+     * a factory creating virtual threads, requires java 21 or later
+     */
+    static WickrExecutorFactory virtual() {
+        return new VirtualWickrExecutorFactory();
+    }
+
+    static WickrExecutorFactory virtualIfAvailable() {
+        return VirtualWickrExecutorFactory.isSupported() ? virtual() : platform();
+    }
+
+    ThreadFactory threadFactory(String name);
+
+    default Thread newThread(final String name, final Runnable task) {
+        return this.threadFactory(name).newThread(task);
+    }
+
+    default ScheduledExecutorService newScheduledExecutor(final String name, final int numThreads) {
+        return Executors.newScheduledThreadPool(numThreads, this.threadFactory(name));
+    }
+
+    /**
+     * an executor for blocking tasks such as listener callbacks and http calls, starting threads as they are needed
+     */
+    default ExecutorService newTaskExecutor(final String name) {
+        return Executors.newCachedThreadPool(this.threadFactory(name));
+    }
+}
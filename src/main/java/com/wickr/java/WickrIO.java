@@ -26,15 +26,40 @@
 package com.wickr.java;
 
 import com.wickr.java.http.WickrBotServer;
+import com.wickr.java.http.WickrHttpTransport;
 import com.wickr.java.impl.ArrayBlockingWickrEventQueue;
+import com.wickr.java.impl.BoundedAsyncListener;
+import com.wickr.java.impl.CoalescingWickrEventQueue;
+import com.wickr.java.impl.DeduplicatingWickrEventQueue;
+import com.wickr.java.impl.FairWickrEventQueue;
+import com.wickr.java.impl.ListenerBulkhead;
+import com.wickr.java.impl.MappedFileWickrEventQueue;
+import com.wickr.java.impl.OverflowPolicy;
+import com.wickr.java.impl.PartitionedWickrEventDispatcher;
+import com.wickr.java.impl.PollingSchedule;
+import com.wickr.java.impl.ReplaySpeed;
+import com.wickr.java.impl.RetainedEventLog;
+import com.wickr.java.impl.WickrEventDelegateThread;
+import com.wickr.java.impl.WickrEventPublisher;
+import com.wickr.java.impl.WickrEventRouter;
 import com.wickr.java.impl.WickrEventPublishingWorker;
-import com.wickr.java.util.HttpUtils;
+import com.wickr.java.model.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * a rest client for the wickr-io web application
@@ -46,7 +71,21 @@ public class WickrIO {
     public static class Builder {
         private final List<WickrBot> bots = new ArrayList<>();
 
-        private final List<WickrListener> listeners = new ArrayList<>();
+        private final Map<WickrListener, WickrSubscription> listeners = new LinkedHashMap<>();
+
+        private final List<WickrBatchListener> batchListeners = new ArrayList<>();
+
+        private boolean acknowledgeFailedBatches = false;
+
+        private final List<BoundedAsyncListener> asyncListeners = new ArrayList<>();
+
+        private final Map<WickrListener, Integer> blockingListeners = new LinkedHashMap<>();
+
+        private int maxInFlightEvents = DEFAULT_MAX_IN_FLIGHT_EVENTS;
+
+        private int listenerQueueCapacity = -1;
+
+        private Supplier<OverflowPolicy> listenerOverflowPolicy = null;
 
         private int serverPort = WickrBotServer.DEFAULT_LISTEN_PORT;
 
@@ -54,12 +93,50 @@ public class WickrIO {
 
         private boolean useServer = true;
 
-        private int messageQueryFrequencyMsec = -1;
+        private PollingSchedule pollingSchedule = null;
+
+        private int pollingThreads = WickrEventPublishingWorker.DEFAULT_POLLING_THREADS;
+
+        private int pollingPageSize = -1;
 
         private WickrEventQueue eventQueue = new ArrayBlockingWickrEventQueue();
 
+        private boolean customQueue = false;
+
         private WickrDocker docker = null;
 
+        private int dispatchThreads = 1;
+
+        private File durableQueueDir = null;
+
+        private final Map<String, Integer> botWeights = new HashMap<>();
+
+        private boolean fairQueue = false;
+
+        private int dedupWindowMsec = -1;
+
+        private boolean dedupAcrossBots = false;
+
+        private int coalesceWindowMsec = -1;
+
+        private int batchSize = 1;
+
+        private int batchDelayMsec = -1;
+
+        private WickrExecutorFactory executors = WickrExecutorFactory.platform();
+
+        private File eventLogDir = null;
+
+        private long eventLogRetentionMsec = -1;
+
+        private RetainedEventLog eventLog = null;
+
+        private int minConnectionsPerBot = WickrHttpTransport.DEFAULT_MIN_PER_ROUTE;
+
+        private int maxConnectionsPerBot = WickrHttpTransport.DEFAULT_MAX_PER_ROUTE;
+
+        private WickrHttpTransport transport = null;
+
         public Builder withDocker(final WickrDocker dockerApi) {
             this.docker = dockerApi;
             return this;
@@ -69,6 +146,20 @@ public class WickrIO {
             return this.withBots(Collections.singleton(bot));
         }
 
+        /**
+         * add a bot with a share of a fair event queue, cannot be combined with a custom or durable event queue
+         */
+        public Builder withBot(final WickrBot bot, final int weight) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight for bot [" + bot + "] must be positive.");
+            }
+            if (bot != null) {
+                this.botWeights.put(bot.getUser(), weight);
+                this.fairQueue = true;
+            }
+            return this.withBot(bot);
+        }
+
         public Builder withBots(final WickrBot... bots) {
             return withBots(Arrays.asList(bots));
         }
@@ -99,24 +190,241 @@ public class WickrIO {
         }
 
         public Builder withEventCallback() {
-            this.messageQueryFrequencyMsec = -1;
+            this.pollingSchedule = null;
             return this;
         }
 
         public Builder withEventListener(final int queryFrequencyMsec) {
-            this.messageQueryFrequencyMsec = queryFrequencyMsec;
+            this.pollingSchedule = queryFrequencyMsec > 0 ? PollingSchedule.fixed(queryFrequencyMsec) : null;
+            return this;
+        }
+
+        public Builder withAdaptiveEventListener(final int minQueryFrequencyMsec, final int maxQueryFrequencyMsec) {
+            return this.withAdaptiveEventListener(minQueryFrequencyMsec, maxQueryFrequencyMsec, false);
+        }
+
+        public Builder withAdaptiveEventListener(final int minQueryFrequencyMsec, final int maxQueryFrequencyMsec, final boolean checkPendingMessages) {
+            this.pollingSchedule = PollingSchedule.adaptive(minQueryFrequencyMsec, maxQueryFrequencyMsec, checkPendingMessages);
+            return this;
+        }
+
+        public Builder withPollingThreads(final int maxConcurrentPolls) {
+            if (maxConcurrentPolls <= 0) {
+                throw new IllegalArgumentException("Number of polling threads must be positive.");
+            }
+            this.pollingThreads = maxConcurrentPolls;
+            return this;
+        }
+
+        public Builder withPollingPageSize(final int maxMessagesPerPoll) {
+            this.pollingPageSize = maxMessagesPerPoll;
             return this;
         }
 
         public Builder withListener(final WickrListener l) {
+            return this.withListener(l, WickrSubscription.all());
+        }
+
+        public Builder withListener(final WickrListener l, final WickrSubscription subscription) {
+            if (null == subscription) {
+                throw new IllegalArgumentException("Subscription cannot be null.");
+            }
+            if (l != null) {
+                this.listeners.put(l, subscription);
+            }
+            return this;
+        }
+
+        /**
+         * give each listener its own queue and thread, so a slow or failing listener cannot hold up the others. once
+         * a listener's queue is full new events for it are dropped and counted, pass a blocking overflow policy to
+         * wait for room instead, at the cost of stalling dispatch to every listener while waiting.
+         * <p>
+         * only listeners added with withListener are isolated. batch listeners are still called in turn on the
+         * dispatching thread, with their failures caught and counted, and asynchronous listeners are bounded by
+         * their in-flight limits instead.
+         */
+        public Builder withListenerIsolation(final int queueCapacity) {
+            return this.withListenerIsolation(queueCapacity, OverflowPolicy::dropNewest);
+        }
+
+        public Builder withListenerIsolation(final int queueCapacity, final Supplier<OverflowPolicy> overflowPolicy) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("Listener queue capacity must be positive.");
+            }
+            if (null == overflowPolicy) {
+                throw new IllegalArgumentException("Overflow policy cannot be null.");
+            }
+            this.listenerQueueCapacity = queueCapacity;
+            this.listenerOverflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public Builder withBatchListener(final WickrBatchListener l) {
+            if (l != null) {
+                this.batchListeners.add(l);
+            }
+            return this;
+        }
+
+        /**
+         * whether events in a batch a batch listener threw on are still acknowledged, false by default. events left
+         * unacknowledged stay in a durable queue and are delivered again, to every listener, once it is reopened;
+         * until then they hold back its position, so older log segments are kept.
+         */
+        public Builder withFailedBatchAcknowledgement(final boolean acknowledge) {
+            this.acknowledgeFailedBatches = acknowledge;
+            return this;
+        }
+
+        public Builder withAsyncListener(final WickrAsyncListener l) {
+            return this.withAsyncListener(l, BoundedAsyncListener.DEFAULT_MAX_IN_FLIGHT);
+        }
+
+        public Builder withAsyncListener(final WickrAsyncListener l, final int maxInFlight) {
             if (l != null) {
-                this.listeners.add(l);
+                this.asyncListeners.add(new BoundedAsyncListener(l, maxInFlight));
             }
             return this;
         }
 
+        public Builder withBlockingListener(final WickrListener l) {
+            return this.withBlockingListener(l, BoundedAsyncListener.DEFAULT_MAX_IN_FLIGHT);
+        }
+
+        /**
+         * a listener that blocks, for example on http calls, run as a separate task on the task executor for each
+         * event. up to maxInFlight events are processed at once, so unlike other listeners it may see events from the
+         * same conversation out of order. events are acknowledged once it returns.
+         */
+        public Builder withBlockingListener(final WickrListener l, final int maxInFlight) {
+            if (l != null) {
+                if (maxInFlight <= 0) {
+                    throw new IllegalArgumentException("Maximum in-flight events must be positive.");
+                }
+                this.blockingListeners.put(l, maxInFlight);
+            }
+            return this;
+        }
+
+        /**
+         * the maximum number of events in flight across all asynchronous listeners
+         */
+        public Builder withMaxInFlightEvents(final int maxInFlight) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("Maximum in-flight events must be positive.");
+            }
+            this.maxInFlightEvents = maxInFlight;
+            return this;
+        }
+
+        public Builder withEventBatching(final int maxEvents, final int maxDelayMsec) {
+            if (maxEvents <= 0) {
+                throw new IllegalArgumentException("Batch size must be positive.");
+            }
+            this.batchSize = maxEvents;
+            this.batchDelayMsec = maxDelayMsec;
+            return this;
+        }
+
+        /**
+         * only one of a custom, durable or fair event queue may be chosen, start() fails if more than one is
+         */
         public Builder withEventQueue(final WickrEventQueue queue) {
+            if (null == queue) {
+                throw new IllegalArgumentException("Event queue cannot be null.");
+            }
             this.eventQueue = queue;
+            this.customQueue = true;
+            return this;
+        }
+
+        /**
+         * persist queued events to disk, cannot be combined with a custom or fair event queue
+         */
+        public Builder withDurableEventQueue(final File queueDir) {
+            if (null == queueDir) {
+                throw new IllegalArgumentException("Queue directory cannot be null.");
+            }
+            this.durableQueueDir = queueDir;
+            return this;
+        }
+
+        /**
+         * share the event queue between bots by weight, cannot be combined with a custom or durable event queue
+         */
+        public Builder withFairEventQueue() {
+            this.fairQueue = true;
+            return this;
+        }
+
+        public Builder withDispatchThreads(final int numThreads) {
+            if (numThreads <= 0) {
+                throw new IllegalArgumentException("Number of dispatch threads must be positive.");
+            }
+            this.dispatchThreads = numThreads;
+            return this;
+        }
+
+        /**
+         * size each bot's connection pool, which grows from the minimum toward the maximum while requests wait
+         */
+        public Builder withConnectionsPerBot(final int min, final int max) {
+            if (min <= 0 || max < min) {
+                throw new IllegalArgumentException("Invalid connections per bot [" + min + ", " + max + "].");
+            }
+            this.minConnectionsPerBot = min;
+            this.maxConnectionsPerBot = max;
+            return this;
+        }
+
+        public Builder withExecutors(final WickrExecutorFactory executorFactory) {
+            if (null == executorFactory) {
+                throw new IllegalArgumentException("Executor factory cannot be null.");
+            }
+            this.executors = executorFactory;
+            return this;
+        }
+
+        /**
+         * run the event thread, dispatch workers, bot pollers and isolated listener workers on virtual threads,
+         * requires java 21 or later. the number of these threads and the order events are delivered in are unchanged.
+         * blocking listeners and other tasks on the task executor each get a new virtual thread instead of a pooled one.
+         */
+        public Builder withVirtualThreads() {
+            return this.withExecutors(WickrExecutorFactory.virtual());
+        }
+
+        /**
+         * keep a local log of every event dispatched, so they can be replayed later
+         */
+        public Builder withEventLog(final File logDir) {
+            return this.withEventLog(logDir, -1, TimeUnit.MILLISECONDS);
+        }
+
+        public Builder withEventLog(final File logDir, final long retention, final TimeUnit unit) {
+            if (null == logDir) {
+                throw new IllegalArgumentException("Event log directory cannot be null.");
+            }
+            this.eventLogDir = logDir;
+            this.eventLogRetentionMsec = retention > 0 ? unit.toMillis(retention) : -1;
+            return this;
+        }
+
+        /**
+         * merge bursts of room modification control messages for the same room into one event
+         */
+        public Builder withControlCoalescing(final int windowMsec) {
+            if (windowMsec <= 0) {
+                throw new IllegalArgumentException("Coalescing window must be positive.");
+            }
+            this.coalesceWindowMsec = windowMsec;
+            return this;
+        }
+
+        public Builder withDeduplication(final int windowMsec, final boolean acrossBots) {
+            this.dedupWindowMsec = windowMsec;
+            this.dedupAcrossBots = acrossBots;
             return this;
         }
 
@@ -124,10 +432,31 @@ public class WickrIO {
             return this.start(-1);
         }
 
+        private void checkEventQueue() {
+            final List<String> queues = new ArrayList<>();
+            if (this.customQueue) {
+                queues.add("custom [" + this.eventQueue + "]");
+            }
+            if (this.durableQueueDir != null) {
+                queues.add("durable [" + this.durableQueueDir + "]");
+            }
+            if (this.fairQueue) {
+                queues.add(this.botWeights.isEmpty() ? "fair" : "fair, from weighted bots " + this.botWeights.keySet());
+            }
+            if (queues.size() > 1) {
+                throw new IllegalStateException("Only one event queue can be chosen, found " + queues + ".");
+            }
+        }
+
         public WickrIO start(final int waitTimeoutMsec) throws Exception {
-            if (this.serverSSL != null) {
-                // setup http
-                HttpUtils.setup(this.serverSSL);
+            this.checkEventQueue();
+
+            // setup http, with connection pools owned by this instance
+            this.transport = new WickrHttpTransport(
+                    this.serverSSL != null ? this.serverSSL : WickrSSL.fromSystemProperties(),
+                    this.minConnectionsPerBot, this.maxConnectionsPerBot, this.executors).sizeFor(this.bots);
+            for (final WickrBot bot : this.bots) {
+                bot.withTransport(this.transport);
             }
 
             if (this.docker != null && this.docker.isDockerRunning()) {
@@ -146,25 +475,62 @@ public class WickrIO {
                 bot.waitUntilAvailable(waitTimeoutMsec);
             }
 
+            if (this.durableQueueDir != null) {
+                // replace in-memory queue with one persisted to disk, recovering any unacknowledged events
+                this.eventQueue = new MappedFileWickrEventQueue(this.durableQueueDir, this.bots);
+            } else if (this.fairQueue) {
+                // share the queue between bots by weighted round-robin
+                this.eventQueue = new FairWickrEventQueue(256, this.botWeights);
+            }
+            if (this.coalesceWindowMsec > 0) {
+                // hold room control messages briefly so a burst for the same room is dispatched once
+                this.eventQueue = new CoalescingWickrEventQueue(this.eventQueue, this.coalesceWindowMsec, this.executors);
+            }
+            if (this.dedupWindowMsec > 0) {
+                // drop messages delivered more than once before they reach the queue
+                this.eventQueue = new DeduplicatingWickrEventQueue(this.eventQueue, this.dedupWindowMsec, 65536, this.dedupAcrossBots);
+            }
+
+            if (this.eventLogDir != null) {
+                this.eventLog = new RetainedEventLog(this.eventLogDir, this.eventLogRetentionMsec, TimeUnit.MILLISECONDS);
+            }
+
             // setup wickio base
-            final WickrIO wickrio = new WickrIO(this.bots, this.docker, this.eventQueue);
+            final WickrIO wickrio = new WickrIO(this.bots, this.docker, this.eventQueue, this);
             if (this.docker != null) {
                 wickrio.addComponent(this.docker);
             }
             wickrio.addComponent(this.eventQueue);
-            for (final WickrListener listener : this.listeners) {
-                wickrio.addListener(listener);
+            int listenerIndex = 0;
+            for (final Map.Entry<WickrListener, WickrSubscription> entry : this.listeners.entrySet()) {
+                if (this.listenerQueueCapacity > 0) {
+                    final String name = "WickIO-Listener-" + (++listenerIndex);
+                    final ListenerBulkhead bulkhead = new ListenerBulkhead(name, entry.getKey(), this.listenerQueueCapacity, this.listenerOverflowPolicy.get(), this.executors);
+                    wickrio.addComponent(bulkhead);
+                    wickrio.addListener(bulkhead, entry.getValue());
+                } else {
+                    wickrio.addListener(entry.getKey(), entry.getValue());
+                }
+            }
+            for (final WickrBatchListener listener : this.batchListeners) {
+                wickrio.addBatchListener(listener);
+            }
+            for (final BoundedAsyncListener listener : this.asyncListeners) {
+                wickrio.addAsyncListener(listener);
+            }
+            for (final Map.Entry<WickrListener, Integer> entry : this.blockingListeners.entrySet()) {
+                wickrio.addAsyncListener(new BoundedAsyncListener(wickrio.runAsTask(entry.getKey()), entry.getValue()));
             }
 
             // create event process worker
             final WickrListener eventWorker;
             final boolean listenForCallback;
-            if (this.messageQueryFrequencyMsec > 0) {
-                eventWorker = WickrEventPublishingWorker.createAsThread(this.bots, this.eventQueue, this.messageQueryFrequencyMsec);
+            if (this.pollingSchedule != null) {
+                eventWorker = WickrEventPublishingWorker.createAsThread(this.bots, this.eventQueue, this.pollingSchedule, this.pollingThreads, this.pollingPageSize, this.executors);
                 ((Thread) eventWorker).start();
                 listenForCallback = false;
             } else {
-                eventWorker = WickrEventPublishingWorker.createAsApi(this.bots, this.eventQueue);
+                eventWorker = WickrEventPublishingWorker.createAsApi(this.bots, this.eventQueue, this.executors);
                 listenForCallback = true;
             }
             wickrio.addComponent((WickrComponent) eventWorker);
@@ -179,6 +545,9 @@ public class WickrIO {
                 }
             }
 
+            // shutdown last, components above may still talk to the bots while stopping
+            wickrio.addComponent(this.transport);
+
             registerShutdownHookFor(wickrio);
             return wickrio;
         }
@@ -186,21 +555,68 @@ public class WickrIO {
 
     private static final Logger logger = LoggerFactory.getLogger(WickrIO.class);
 
+    public static final int DEFAULT_MAX_IN_FLIGHT_EVENTS = 1024;
+
     private final WickrDocker docker;
 
     private final Thread eventThread;
 
     private final WickrEventQueue eventQueue;
 
+    private final PartitionedWickrEventDispatcher dispatcher;
+
+    private final int batchSize;
+
+    private final int batchDelayMsec;
+
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+
+    // true while the event thread is waiting on the queue rather than processing events
+    private volatile boolean awaitingEvents = false;
+
+    // events the event thread has taken from the queue and not yet finished with, counted as each one is drained
+    private final AtomicInteger heldEvents = new AtomicInteger();
+
+    // guards moving the event thread between waiting on the queue and processing, so it is only interrupted while waiting
+    private final Object eventThreadLock = new Object();
+
     private final Set<WickrComponent> components = new CopyOnWriteArraySet<>();
 
-    private final Set<WickrListener> listeners = new CopyOnWriteArraySet<>();
+    private final WickrEventRouter router = new WickrEventRouter();
+
+    private final Set<WickrBatchListener> batchListeners = new CopyOnWriteArraySet<>();
+
+    private final AtomicLong batchListenerFailures = new AtomicLong(0);
+
+    private final boolean acknowledgeFailedBatches;
+
+    private final ExecutorService taskExecutor;
+
+    // events from batches a batch listener threw on, dispatched but not to be acknowledged
+    private final Set<WickrEvent> unacknowledgedEvents = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    // events drained by the event thread but not yet dispatched when it was interrupted, read after it exits
+    private final List<WickrEvent> interruptedEvents = new ArrayList<>();
+
+    private final Set<BoundedAsyncListener> asyncListeners = new CopyOnWriteArraySet<>();
+
+    private final WickrEventPublisher publisher = new WickrEventPublisher();
+
+    private final RetainedEventLog eventLog;
+
+    private final int maxInFlightEvents;
+
+    private final Semaphore inFlightPermits;
 
     private final Map<String, WickrBot> bots;
 
     public WickrIO(final Collection<WickrBot> bots, final WickrDocker docker, final WickrEventQueue queue) {
+        this(bots, docker, queue, new Builder());
+    }
+
+    private WickrIO(final Collection<WickrBot> bots, final WickrDocker docker, final WickrEventQueue queue, final Builder config) {
         // save bots to lookup
         this.bots = new HashMap<>(bots.size());
         for (final WickrBot bot : bots) {
@@ -215,10 +631,29 @@ public class WickrIO {
         if (queue != null) {
             this.components.add(queue);
         }
+        this.components.add(this.publisher);
+        this.eventLog = config.eventLog;
+        if (this.eventLog != null) {
+            for (final WickrBot bot : bots) {
+                this.eventLog.putBot(bot);
+            }
+            this.components.add(this.eventLog);
+        }
+        // process events on the event thread, or hand them off to a worker per conversation partition
+        this.batchSize = config.batchSize;
+        this.batchDelayMsec = config.batchDelayMsec;
+        this.acknowledgeFailedBatches = config.acknowledgeFailedBatches;
+        this.taskExecutor = config.executors.newTaskExecutor("WickIO-Task");
+        this.maxInFlightEvents = config.maxInFlightEvents;
+        this.inFlightPermits = new Semaphore(config.maxInFlightEvents);
+        if (config.dispatchThreads > 1) {
+            this.dispatcher = new PartitionedWickrEventDispatcher(config.dispatchThreads, 256, this::processAndAcknowledgeEvent, config.executors);
+            this.components.add(this.dispatcher);
+        } else {
+            this.dispatcher = null;
+        }
         // spawn event processing thread
-        this.eventThread = new Thread(new EventProcessingWorker());
-        this.eventThread.setDaemon(true);
-        this.eventThread.setName("WickIO-EventThread");
+        this.eventThread = config.executors.newThread("WickIO-EventThread", new EventProcessingWorker());
         this.eventThread.start();
     }
 
@@ -230,6 +665,26 @@ public class WickrIO {
         return this.ensureBot(user);
     }
 
+    /**
+     * an executor for blocking work started by asynchronous listeners, such as calls to the bot api. with virtual
+     * threads each task runs on a new virtual thread, otherwise on a pool of platform threads started as needed.
+     */
+    public ExecutorService getTaskExecutor() {
+        return this.taskExecutor;
+    }
+
+    /**
+     * the http transport and connection pools used by this instance's bots, null until started
+     */
+    public WickrHttpTransport getHttpTransport() {
+        for (final WickrComponent component : this.components) {
+            if (component instanceof WickrHttpTransport) {
+                return (WickrHttpTransport) component;
+            }
+        }
+        return null;
+    }
+
     private boolean addComponent(final WickrComponent c) {
         if (null == c) {
             return false;
@@ -238,24 +693,271 @@ public class WickrIO {
         }
     }
 
-    private boolean addListener(final WickrListener l) {
+    private boolean addListener(final WickrListener l, final WickrSubscription subscription) {
+        if (null == l) {
+            return false;
+        } else {
+            this.router.register(l, subscription);
+            return true;
+        }
+    }
+
+    private boolean addBatchListener(final WickrBatchListener l) {
         if (null == l) {
             return false;
         } else {
-            return this.listeners.add(l);
+            return this.batchListeners.add(l);
         }
     }
 
+    private WickrAsyncListener runAsTask(final WickrListener l) {
+        return (bot, message) -> CompletableFuture.runAsync(() -> l.messageReceived(bot, message), this.taskExecutor);
+    }
+
+    private boolean addAsyncListener(final BoundedAsyncListener l) {
+        if (null == l) {
+            return false;
+        } else {
+            return this.asyncListeners.add(l);
+        }
+    }
+
+    /**
+     * the isolated queues of each listener, empty unless listener isolation is enabled
+     */
+    public List<ListenerBulkhead> getListenerBulkheads() {
+        final List<ListenerBulkhead> bulkheads = new ArrayList<>();
+        for (final WickrComponent component : this.components) {
+            if (component instanceof ListenerBulkhead) {
+                bulkheads.add((ListenerBulkhead) component);
+            }
+        }
+        return bulkheads;
+    }
+
+    /**
+     * the number of events the listener threw on, whether or not it is isolated
+     */
+    public long getListenerFailureCount(final WickrListener listener) {
+        final ListenerBulkhead bulkhead = this.findBulkhead(listener);
+        return bulkhead != null ? bulkhead.getFailedCount() : this.router.getFailedCount(listener);
+    }
+
+    /**
+     * the number of events the listener processed, including those it failed on
+     */
+    public long getListenerProcessedCount(final WickrListener listener) {
+        final ListenerBulkhead bulkhead = this.findBulkhead(listener);
+        return bulkhead != null ? bulkhead.getProcessedCount() : this.router.getProcessedCount(listener);
+    }
+
+    /**
+     * the number of events dropped because the listener's queue was full. listeners that are not isolated are
+     * called on the dispatching thread and never drop events.
+     */
+    public long getListenerDroppedCount(final WickrListener listener) {
+        final ListenerBulkhead bulkhead = this.findBulkhead(listener);
+        return bulkhead != null ? bulkhead.getDroppedCount() : 0;
+    }
+
+    private ListenerBulkhead findBulkhead(final WickrListener listener) {
+        for (final ListenerBulkhead bulkhead : this.getListenerBulkheads()) {
+            if (bulkhead.getListener().equals(listener)) {
+                return bulkhead;
+            }
+        }
+        return null;
+    }
+
+    public List<BoundedAsyncListener> getAsyncListeners() {
+        return List.copyOf(this.asyncListeners);
+    }
+
+    /**
+     * the number of events currently being processed by asynchronous listeners
+     */
+    public int getInFlightEventCount() {
+        return this.maxInFlightEvents - this.inFlightPermits.availablePermits();
+    }
+
+    /**
+     * the number of times a batch listener threw while processing a batch
+     */
+    public long getBatchListenerFailureCount() {
+        return this.batchListenerFailures.get();
+    }
+
+    /**
+     * a reactive view of the event stream, where subscriber demand controls how quickly events leave the queue.
+     * events are acknowledged only once each subscriber's onNext has returned for them, so a durable queue delivers
+     * events still buffered for a subscriber again after a restart.
+     */
+    public Flow.Publisher<WickrEvent> events() {
+        return this.publisher;
+    }
+
+    /**
+     * the log of dispatched events, or null if not enabled
+     */
+    public RetainedEventLog getEventLog() {
+        return this.eventLog;
+    }
+
+    /**
+     * replay events originally sent within the range [from, to) into the given listeners, on the calling thread
+     *
+     * @return the number of events replayed
+     */
+    public int replay(final Instant from, final Instant to, final ReplaySpeed speed, final WickrListener... listeners) throws InterruptedException {
+        if (null == this.eventLog) {
+            throw new IllegalStateException("Event log not configured, unable to replay events.");
+        }
+        return this.eventLog.replay(from, to, speed, Arrays.asList(listeners));
+    }
+
     public void shutdown() throws Exception {
         this.closed.getAndSet(true);
+        this.stopEventThread();
+        this.shutdownComponents();
+    }
+
+    /**
+     * stop taking in new events, keep delivering those already queued until the queue is empty or the timeout
+     * passes, then shut down
+     *
+     * @return the events not delivered before the timeout, whether still queued, waiting on a dispatch worker, held
+     * for coalescing or queued for an isolated listener. a durable queue also keeps the unacknowledged ones for the
+     * next start.
+     */
+    public List<WickrEvent> shutdown(final long timeout, final TimeUnit unit) throws Exception {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (this.isClosed()) {
+            return Collections.emptyList();
+        }
+
+        // stop intake, so the queue can only shrink
+        for (final WickrComponent component : this.components) {
+            if (component instanceof WickrBotServer) {
+                ((WickrBotServer) component).getApplication().stopEventCallbacks();
+            }
+        }
+        for (final WickrComponent component : this.components) {
+            final long remaining = Math.max(0, deadline - System.nanoTime());
+            boolean intakeStopped = true;
+            if (component instanceof WickrEventDelegateThread) {
+                intakeStopped = ((WickrEventDelegateThread) component).stopIntake(remaining, TimeUnit.NANOSECONDS);
+            } else if (component instanceof WickrEventPublishingWorker) {
+                intakeStopped = ((WickrEventPublishingWorker) component).stopIntake(remaining, TimeUnit.NANOSECONDS);
+            }
+            if (!intakeStopped) {
+                logger.warn("Timed out waiting for event intake to stop.");
+            }
+        }
+
+        // keep dispatching until everything queued has been processed
+        int idleChecks = 0;
+        while (idleChecks < 2 && System.nanoTime() < deadline) {
+            idleChecks = this.isIdle() ? idleChecks + 1 : 0;
+            Thread.sleep(10);
+        }
+
+        // collect everything not delivered, oldest first: events handed to dispatch workers, then events still
+        // queued, then room control events held for coalescing
+        this.closed.getAndSet(true);
+        this.stopEventThread();
+        final List<WickrEvent> undelivered = new ArrayList<>(this.interruptedEvents);
+        if (this.dispatcher != null) {
+            undelivered.addAll(this.dispatcher.stop(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        }
+        if (!this.eventQueue.isEmpty()) {
+            this.eventQueue.drainTo(undelivered, Integer.MAX_VALUE, 1, TimeUnit.MILLISECONDS);
+        }
+        final CoalescingWickrEventQueue coalescing = findQueue(this.eventQueue, CoalescingWickrEventQueue.class);
+        if (coalescing != null) {
+            undelivered.addAll(coalescing.drainPending());
+        }
+        final int queued = undelivered.size();
+
+        // events delivered to some listeners but still queued for an isolated one, listed once
+        final Set<Message> listed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final WickrEvent event : undelivered) {
+            listed.add(event.getMessage());
+        }
+        for (final ListenerBulkhead bulkhead : this.getListenerBulkheads()) {
+            for (final WickrEvent event : bulkhead.stop(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                if (listed.add(event.getMessage())) {
+                    undelivered.add(event);
+                }
+            }
+        }
+        if (!undelivered.isEmpty()) {
+            logger.warn("Shutdown deadline passed with [" + queued + "] events not dispatched and [" + (undelivered.size() - queued) + "] events not processed by isolated listeners.");
+        }
+        this.shutdownComponents();
+        return undelivered;
+    }
+
+    private static <T extends WickrEventQueue> T findQueue(final WickrEventQueue queue, final Class<T> type) {
+        WickrEventQueue next = queue;
+        while (next != null) {
+            if (type.isInstance(next)) {
+                return type.cast(next);
+            } else if (next instanceof DeduplicatingWickrEventQueue) {
+                next = ((DeduplicatingWickrEventQueue) next).getDelegate();
+            } else if (next instanceof CoalescingWickrEventQueue) {
+                next = ((CoalescingWickrEventQueue) next).getDelegate();
+            } else {
+                next = null;
+            }
+        }
+        return null;
+    }
+
+    private boolean isIdle() {
+        if (!this.awaitingEvents || this.heldEvents.get() > 0 || !this.eventQueue.isEmpty()) {
+            return false;
+        }
+        if (this.dispatcher != null && this.dispatcher.getPendingCount() > 0) {
+            return false;
+        }
+        if (this.getInFlightEventCount() > 0) {
+            return false;
+        }
+        for (final ListenerBulkhead bulkhead : this.getListenerBulkheads()) {
+            if (!bulkhead.isIdle()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void stopEventThread() throws InterruptedException {
+        if (!this.eventThread.isAlive()) {
+            return;
+        }
+        // a thread waiting on the queue is interrupted, one processing a batch finishes it and then sees it is closed
+        synchronized (this.eventThreadLock) {
+            if (this.awaitingEvents) {
+                this.eventThread.interrupt();
+            }
+        }
+        this.eventThread.join(TimeUnit.SECONDS.toMillis(5));
         if (this.eventThread.isAlive()) {
+            logger.warn("Event thread did not finish processing its batch, interrupting.");
             this.eventThread.interrupt();
             this.eventThread.join();
         }
+    }
+
+    private void shutdownComponents() throws Exception {
+        if (this.stopped.getAndSet(true)) {
+            return;
+        }
+        // tasks already started may finish, though the transport they use is shut down below
+        this.taskExecutor.shutdown();
         for (final WickrComponent component : this.components) {
             component.shutdown();
         }
-        HttpUtils.shutdown();
     }
 
     public boolean isClosed() {
@@ -274,20 +976,94 @@ public class WickrIO {
         }
     }
 
-    private Collection<WickrListener> getListeners() {
-        return List.copyOf(this.listeners);
+    /**
+     * @return a future completed once every asynchronous listener has finished with the event and every subscriber
+     * has been handed it, or null if none were notified
+     */
+    private CompletableFuture<Void> processEvent(final WickrEvent event) {
+        if (null == event) {
+            return null;
+        }
+        if (this.eventLog != null) {
+            this.eventLog.record(event);
+        }
+        this.router.route(event);
+        CompletableFuture<Void> published = null;
+        if (this.publisher.hasSubscribers()) {
+            try {
+                published = this.publisher.publish(event);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // never completed, so the event is not acknowledged without reaching every subscriber
+                return new CompletableFuture<>();
+            }
+        }
+        if (this.asyncListeners.isEmpty()) {
+            return published;
+        }
+        final List<CompletableFuture<Void>> pending = new ArrayList<>(this.asyncListeners.size() + 1);
+        if (published != null) {
+            pending.add(published);
+        }
+        for (final BoundedAsyncListener listener : this.asyncListeners) {
+            try {
+                pending.add(listener.invoke(event, this.inFlightPermits));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture<?>[]::new));
     }
 
-    private boolean processEvent(final WickrEvent event) {
-        if (null == event) {
-            return false;
+    private void processEvents(final List<WickrEvent> events) throws InterruptedException {
+        if (!this.batchListeners.isEmpty()) {
+            final List<WickrEvent> batch = List.copyOf(events);
+            boolean rejected = false;
+            for (final WickrBatchListener listener : this.batchListeners) {
+                // a failing batch listener must not keep the batch from other listeners
+                try {
+                    listener.messagesReceived(batch);
+                } catch (final RuntimeException e) {
+                    rejected = true;
+                    this.batchListenerFailures.incrementAndGet();
+                    logger.warn("Batch listener [" + listener + "] failed to process [" + batch.size() + "] messages.", e);
+                }
+            }
+            if (rejected && !this.acknowledgeFailedBatches) {
+                // still dispatched to other listeners, but left for a durable queue to deliver again
+                this.unacknowledgedEvents.addAll(batch);
+            }
+        }
+        for (int i = 0; i < events.size(); i++) {
+            if (this.dispatcher != null) {
+                try {
+                    this.dispatcher.dispatch(events.get(i));
+                } catch (final InterruptedException e) {
+                    // keep the rest of the batch, so shutdown can return it
+                    this.interruptedEvents.addAll(events.subList(i, events.size()));
+                    throw e;
+                }
+            } else {
+                this.processAndAcknowledgeEvent(events.get(i));
+            }
         }
-        int notified = 0;
-        for (final WickrListener listener : this.getListeners()) {
-            listener.messageReceived(event.getBot(), event.getMessage());
-            notified++;
+    }
+
+    private void processAndAcknowledgeEvent(final WickrEvent event) {
+        CompletableFuture<Void> completion = null;
+        try {
+            completion = this.processEvent(event);
+        } finally {
+            if (!this.unacknowledgedEvents.isEmpty() && this.unacknowledgedEvents.remove(event)) {
+                logger.debug("Not acknowledging event [" + event.getMessage() + "] rejected by a batch listener.");
+            } else if (null == completion) {
+                this.eventQueue.acknowledge(event);
+            } else {
+                // acknowledge only once asynchronous listeners are done, so durable queues can redeliver otherwise
+                completion.whenComplete((r, e) -> this.eventQueue.acknowledge(event));
+            }
         }
-        return notified > 0;
     }
 
     private WickrBot ensureBot(final String user) {
@@ -327,11 +1103,49 @@ public class WickrIO {
         }
 
         private void processEventsUntilClosed() throws InterruptedException {
+            // count events as the queue hands them over, so shutdown does not mistake a batch being collected for idle
+            final List<WickrEvent> events = new ArrayList<>(WickrIO.this.batchSize) {
+                @Override
+                public boolean add(final WickrEvent event) {
+                    WickrIO.this.heldEvents.incrementAndGet();
+                    return super.add(event);
+                }
+            };
             boolean firstRun = true;
-            while (firstRun || !WickrIO.this.isClosed()) {
-                final WickrEvent event = WickrIO.this.eventQueue.remove();
-                if (event != null) {
-                    processEvent(event);
+            while (true) {
+                synchronized (WickrIO.this.eventThreadLock) {
+                    if (!firstRun && WickrIO.this.isClosed()) {
+                        return;
+                    }
+                    WickrIO.this.awaitingEvents = true;
+                }
+                events.clear();
+                final int numEvents;
+                final boolean interrupted;
+                try {
+                    numEvents = WickrIO.this.eventQueue.drainTo(events, WickrIO.this.batchSize, WickrIO.this.batchDelayMsec, TimeUnit.MILLISECONDS);
+                } catch (final InterruptedException e) {
+                    // keep whatever was drained before the interrupt, so shutdown can return it
+                    WickrIO.this.interruptedEvents.addAll(events);
+                    throw e;
+                } finally {
+                    synchronized (WickrIO.this.eventThreadLock) {
+                        WickrIO.this.awaitingEvents = false;
+                        // an interrupt meant for the wait, finish the batch before acting on it
+                        interrupted = Thread.interrupted();
+                    }
+                }
+                if (numEvents > 0) {
+                    try {
+                        processEvents(events);
+                    } catch (final RuntimeException e) {
+                        // keep the event thread alive, one bad batch should not stop delivery
+                        logger.warn("Unable to process batch of [" + events.size() + "] events.", e);
+                    }
+                }
+                WickrIO.this.heldEvents.set(0);
+                if (interrupted) {
+                    throw new InterruptedException();
                 }
                 firstRun = false;
             }
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java;
+
+import com.wickr.java.model.Message;
+import com.wickr.java.model.MessageType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * the events a listener is interested in, matched by message type, bot, room and sender
+ * <p>
+ * criteria left unset match any event, so {@link #all()} receives every event.
+ *
+ * @date 10/17/26.
+ */
+public final class WickrSubscription {
+    private static final WickrSubscription ALL = new WickrSubscription(null, null, null, null);
+
+    public static WickrSubscription all() {
+        return ALL;
+    }
+
+    public static WickrSubscription forTypes(final MessageType type, final MessageType... types) {
+        return ALL.withTypes(type, types);
+    }
+
+    public static WickrSubscription forBot(final String user) {
+        return ALL.withBot(user);
+    }
+
+    public static WickrSubscription forGroup(final String groupId) {
+        return ALL.withGroup(groupId);
+    }
+
+    public static WickrSubscription fromSender(final String sender) {
+        return ALL.withSender(sender);
+    }
+
+    private final Set<MessageType> types;
+
+    private final String bot;
+
+    private final String groupId;
+
+    private final String sender;
+
+    private WickrSubscription(final Set<MessageType> types, final String bot, final String groupId, final String sender) {
+        this.types = types;
+        this.bot = bot;
+        this.groupId = groupId;
+        this.sender = sender;
+    }
+
+    public WickrSubscription withTypes(final MessageType type, final MessageType... types) {
+        if (null == type) {
+            throw new IllegalArgumentException("Message type cannot be null.");
+        }
+        return new WickrSubscription(Collections.unmodifiableSet(EnumSet.of(type, types)), this.bot, this.groupId, this.sender);
+    }
+
+    public WickrSubscription withBot(final String user) {
+        return new WickrSubscription(this.types, requireValue(user, "Bot username"), this.groupId, this.sender);
+    }
+
+    public WickrSubscription withGroup(final String groupId) {
+        return new WickrSubscription(this.types, this.bot, requireValue(groupId, "Group id"), this.sender);
+    }
+
+    public WickrSubscription withSender(final String sender) {
+        return new WickrSubscription(this.types, this.bot, this.groupId, requireValue(sender, "Sender"));
+    }
+
+    /**
+     * @return the message types to match, or null for any type
+     */
+    public Set<MessageType> getTypes() {
+        return this.types;
+    }
+
+    public String getBot() {
+        return this.bot;
+    }
+
+    public String getGroupId() {
+        return this.groupId;
+    }
+
+    public String getSender() {
+        return this.sender;
+    }
+
+    public boolean matches(final WickrBot bot, final Message message) {
+        if (null == message) {
+            return false;
+        }
+        if (this.bot != null && (null == bot || !this.bot.equals(bot.getUser()))) {
+            return false;
+        }
+        if (this.groupId != null && !this.groupId.equals(message.getGroupId())) {
+            return false;
+        }
+        if (this.sender != null && !this.sender.equals(message.getSender())) {
+            return false;
+        }
+        return null == this.types || this.types.contains(message.getMessageType());
+    }
+
+    private static String requireValue(final String value, final String name) {
+        if (null == value || value.isBlank()) {
+            throw new IllegalArgumentException(name + " cannot be empty.");
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WickrSubscription that = (WickrSubscription) o;
+        return Objects.equals(types, that.types) && Objects.equals(bot, that.bot) && Objects.equals(groupId, that.groupId) && Objects.equals(sender, that.sender);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(types, bot, groupId, sender);
+    }
+
+    @Override
+    public String toString() {
+        return "WickrSubscription{" +
+                "types=" + types +
+                ", bot='" + bot + '\'' +
+                ", groupId='" + groupId + '\'' +
+                ", sender='" + sender + '\'' +
+                '}';
+    }
+}
@@ -26,10 +26,12 @@
 package com.wickr.java.http;
 
 import org.apache.hc.client5.http.auth.*;
-import org.apache.hc.client5.http.utils.ByteArrayBuilder;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.HttpRequest;
 import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.message.BasicHeader;
 import org.apache.hc.core5.http.protocol.HttpContext;
 
 import java.nio.charset.Charset;
@@ -39,19 +41,21 @@ import java.util.*;
 
 /**
  * basic authentication for wickr api
+ * <p>
+ * the token never changes, so the authorization header is encoded once and shared by every request
  *
  * @date 3/14/21.
  */
 public class WickrAuthentication implements AuthScheme {
-    private final Charset charset;
+    private volatile boolean complete;
 
-    private ByteArrayBuilder buffer;
+    private volatile Map<String, String> paramMap = Collections.emptyMap();
 
-    private boolean complete;
+    private final String token;
 
-    private final Map<String, String> paramMap = new HashMap<>();
+    private final String authResponse;
 
-    private final String token;
+    private final Header authHeader;
 
     public WickrAuthentication(final String apiToken) {
         this(apiToken, StandardCharsets.US_ASCII);
@@ -59,10 +63,19 @@ public class WickrAuthentication implements AuthScheme {
 
     public WickrAuthentication(final String apiToken, final Charset charset) {
         this.token = apiToken;
-        this.charset = charset != null ? charset : StandardCharsets.US_ASCII;
+        final byte[] credentials = apiToken != null ? apiToken.getBytes(charset != null ? charset : StandardCharsets.US_ASCII) : new byte[0];
+        this.authResponse = StandardAuthScheme.BASIC + " " + Base64.getEncoder().encodeToString(credentials);
+        this.authHeader = new BasicHeader(HttpHeaders.AUTHORIZATION, this.authResponse);
         this.complete = false;
     }
 
+    /**
+     * the immutable authorization header, safe to set on requests from any thread
+     */
+    public Header getAuthorizationHeader() {
+        return this.authHeader;
+    }
+
     @Override
     public String getName() {
         return StandardAuthScheme.BASIC;
@@ -82,13 +95,14 @@ public class WickrAuthentication implements AuthScheme {
     public void processChallenge(
             final AuthChallenge authChallenge,
             final HttpContext context) {
-        this.paramMap.clear();
+        final Map<String, String> challengeParams = new HashMap<>();
         final List<NameValuePair> params = authChallenge.getParams();
         if (params != null) {
             for (final NameValuePair param : params) {
-                this.paramMap.put(param.getName().toLowerCase(Locale.ROOT), param.getValue());
+                challengeParams.put(param.getName().toLowerCase(Locale.ROOT), param.getValue());
             }
         }
+        this.paramMap = Collections.unmodifiableMap(challengeParams);
         this.complete = true;
     }
 
@@ -115,15 +129,7 @@ public class WickrAuthentication implements AuthScheme {
             final HttpHost host,
             final HttpRequest request,
             final HttpContext context) throws AuthenticationException {
-        if (this.buffer == null) {
-            this.buffer = new ByteArrayBuilder(256).charset(this.charset);
-        } else {
-            this.buffer.reset();
-        }
-        this.buffer.append(this.token);
-        final byte[] encoded = Base64.getEncoder().encode(this.buffer.toByteArray());
-        this.buffer.reset();
-        return StandardAuthScheme.BASIC + " " + new String(encoded, 0, encoded.length, StandardCharsets.US_ASCII);
+        return this.authResponse;
     }
 
     @Override
@@ -56,6 +56,8 @@ public class WickrBotApplication extends Application {
 
     private final boolean useEventCallback;
 
+    private volatile boolean acceptingEvents = true;
+
     private static final String EVENT_CALLBACK_ENDPOINT = "event_callback";
 
     private static final Logger logger = LoggerFactory.getLogger(WickrBotApplication.class);
@@ -92,12 +94,37 @@ public class WickrBotApplication extends Application {
         return this.userBots.get(user);
     }
 
-    public void notifyMessageReceived(final String username, final Message message) {
+    /**
+     * @return false if the message was refused because callbacks have been stopped
+     */
+    public boolean notifyMessageReceived(final String username, final Message message) {
+        if (!this.acceptingEvents) {
+            return false;
+        }
         final WickrBot bot = this.userBots.get(username);
         if (null == bot) {
-            return;
+            return true;
         }
         this.eventWorker.messageReceived(bot, message);
+        return true;
+    }
+
+    /**
+     * deregister the event callback from every bot and refuse any callbacks still arriving, so undelivered messages
+     * stay with the wickr-io container
+     */
+    public void stopEventCallbacks() {
+        this.acceptingEvents = false;
+        if (!this.useEventCallback) {
+            return;
+        }
+        for (final WickrBot bot : this.userBots.values()) {
+            try {
+                bot.clearEventCallback();
+            } catch (final Exception e) {
+                logger.warn("Unable to clear event callback for bot [" + bot + "].", e);
+            }
+        }
     }
 
     @Override
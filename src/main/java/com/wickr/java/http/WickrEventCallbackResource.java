@@ -63,7 +63,10 @@ public class WickrEventCallbackResource extends WickrResource {
         }
 
         final String botname = this.getBotName();
-        this.getApplication().notifyMessageReceived(this.getBotName(), message);
+        if (!this.getApplication().notifyMessageReceived(this.getBotName(), message)) {
+            this.setStatus(Status.SERVER_ERROR_SERVICE_UNAVAILABLE);
+            return JsonUtils.errorMessage("Not accepting events, shutting down.");
+        }
 
         final Map<String, Object> map = new HashMap<>(2);
         map.put("bot_user", botname);
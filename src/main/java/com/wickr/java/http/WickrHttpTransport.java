@@ -0,0 +1,504 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.http;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrComponent;
+import com.wickr.java.WickrExecutorFactory;
+import com.wickr.java.WickrSSL;
+import com.wickr.java.util.ExceptionUtils;
+import org.apache.hc.client5.http.HttpRequestRetryStrategy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.*;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.ssl.TrustStrategy;
+import org.apache.hc.core5.util.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * the http clients and connection pools used to talk to bot containers
+ * <p>
+ * each bot listens on its own port, so each bot is its own route. routes start with the minimum number of
+ * connections and grow toward the maximum while requests are observed waiting for a connection, then shrink back
+ * once demand falls. idle connections are evicted and pooled connections are validated after a period of inactivity.
+ * <p>
+ * the defaults come from wickr.http.minPerRoute and wickr.http.maxPerRouteLimit. the older wickr.http.maxPerRoute is
+ * still read as the size of each route; set without the other two it fixes every route at that size, as it used to.
+ *
+ * @date 10/17/26.
+ */
+public class WickrHttpTransport implements WickrComponent {
+
+    // wickr.http.maxPerRoute keeps its original meaning, the size every route starts at, and on its own pins routes there
+    private static final String LEGACY_PER_ROUTE = System.getProperty("wickr.http.maxPerRoute");
+
+    public static final int DEFAULT_MIN_PER_ROUTE = Integer.parseInt(System.getProperty("wickr.http.minPerRoute", LEGACY_PER_ROUTE != null ? LEGACY_PER_ROUTE : "4"));
+
+    public static final int DEFAULT_MAX_PER_ROUTE = Math.max(DEFAULT_MIN_PER_ROUTE, Integer.parseInt(System.getProperty("wickr.http.maxPerRouteLimit",
+            LEGACY_PER_ROUTE != null && null == System.getProperty("wickr.http.minPerRoute") ? LEGACY_PER_ROUTE : "32")));
+
+    private static final int DEFAULT_MAX_TOTAL = Integer.parseInt(System.getProperty("wickr.http.totalPoolSize", "12"));
+
+    private static final long IDLE_TIMEOUT_MSEC = Long.parseLong(System.getProperty("wickr.http.idleTimeoutMsec", "30000"));
+
+    private static final long VALIDATE_AFTER_INACTIVITY_MSEC = Long.parseLong(System.getProperty("wickr.http.validateAfterInactivityMsec", "2000"));
+
+    private static final long MAINTENANCE_INTERVAL_MSEC = 1000;
+
+    /**
+     * number of maintenance intervals a route must stay under half its size before it is shrunk
+     */
+    private static final int SHRINK_AFTER_INTERVALS = 60;
+
+    private static final Logger logger = LoggerFactory.getLogger(WickrHttpTransport.class);
+
+    private static class RouteDemand {
+        private int peak = 0;
+
+        private int intervals = 0;
+    }
+
+    private final WickrSSL ssl;
+
+    private final int minPerRoute;
+
+    private final int maxPerRoute;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    private final CloseableHttpClient httpClient;
+
+    private volatile PoolingAsyncClientConnectionManager asyncConnectionManager = null;
+
+    private volatile CloseableHttpAsyncClient httpAsyncClient = null;
+
+    private final Map<HttpRoute, RouteDemand> demand = new ConcurrentHashMap<>();
+
+    private final Map<HttpRoute, RouteDemand> asyncDemand = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService maintenance;
+
+    private final AtomicLong evictedCount = new AtomicLong(0);
+
+    private final AtomicLong resizeCount = new AtomicLong(0);
+
+    private volatile boolean closed = false;
+
+    public WickrHttpTransport(final WickrSSL ssl) {
+        this(ssl, DEFAULT_MIN_PER_ROUTE, DEFAULT_MAX_PER_ROUTE, WickrExecutorFactory.platform());
+    }
+
+    public WickrHttpTransport(final WickrSSL ssl, final int minPerRoute, final int maxPerRoute, final WickrExecutorFactory executors) {
+        if (minPerRoute <= 0 || maxPerRoute < minPerRoute) {
+            throw new IllegalArgumentException("Invalid connections per route [" + minPerRoute + ", " + maxPerRoute + "].");
+        }
+        this.ssl = ssl;
+        this.minPerRoute = minPerRoute;
+        this.maxPerRoute = maxPerRoute;
+        this.connectionManager = createManager(ssl);
+        this.connectionManager.setMaxTotal(Math.max(DEFAULT_MAX_TOTAL, minPerRoute));
+        this.connectionManager.setDefaultMaxPerRoute(minPerRoute);
+        this.connectionManager.setValidateAfterInactivity(TimeValue.ofMilliseconds(VALIDATE_AFTER_INACTIVITY_MSEC));
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(this.connectionManager)
+                .setUserAgent("wickrio-java")
+                .setDefaultHeaders(defaultHeaders())
+                .setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy())
+                .setRetryStrategy(new RetryingHttpRequestRetryStrategy(5, TimeValue.ofSeconds(2L)))
+                .build();
+        HttpsURLConnection.setDefaultHostnameVerifier((hostname, session) -> true);
+        this.maintenance = executors.newScheduledExecutor("WickIO-HttpPool", 1);
+        this.maintenance.scheduleWithFixedDelay(this::maintain, MAINTENANCE_INTERVAL_MSEC, MAINTENANCE_INTERVAL_MSEC, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * give each bot route its own slice of the pool, sized so every bot can reach its maximum at once
+     */
+    public WickrHttpTransport sizeFor(final Collection<WickrBot> bots) {
+        for (final WickrBot bot : bots) {
+            final HttpRoute route = routeFor(bot);
+            if (route != null) {
+                this.demand.putIfAbsent(route, new RouteDemand());
+                this.connectionManager.setMaxPerRoute(route, this.minPerRoute);
+            }
+        }
+        this.connectionManager.setMaxTotal(totalFor(this.connectionManager, this.demand));
+        return this;
+    }
+
+    public CloseableHttpClient getClient() {
+        if (this.closed) {
+            throw new IllegalStateException("Http transport is closed.");
+        }
+        return this.httpClient;
+    }
+
+    public CloseableHttpAsyncClient getAsyncClient() {
+        if (this.closed) {
+            throw new IllegalStateException("Http transport is closed.");
+        }
+        final CloseableHttpAsyncClient client = this.httpAsyncClient;
+        if (client != null) {
+            return client;
+        }
+        return this.createAsyncClient();
+    }
+
+    private synchronized CloseableHttpAsyncClient createAsyncClient() {
+        if (this.closed) {
+            throw new IllegalStateException("Http transport is closed.");
+        }
+        if (null == this.httpAsyncClient) {
+            final PoolingAsyncClientConnectionManagerBuilder builder = PoolingAsyncClientConnectionManagerBuilder.create()
+                    .setMaxConnPerRoute(this.minPerRoute)
+                    .setValidateAfterInactivity(TimeValue.ofMilliseconds(VALIDATE_AFTER_INACTIVITY_MSEC));
+            try {
+                builder.setTlsStrategy(ClientTlsStrategyBuilder.create()
+                        .setSslContext(createSSLContext(this.ssl))
+                        .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                        .build());
+            } catch (final Exception e) {
+                logger.warn("Unable to create SSL context for async http client.", e);
+            }
+            final PoolingAsyncClientConnectionManager manager = builder.build();
+            for (final HttpRoute route : this.demand.keySet()) {
+                this.asyncDemand.putIfAbsent(route, new RouteDemand());
+                manager.setMaxPerRoute(route, this.minPerRoute);
+            }
+            manager.setMaxTotal(totalFor(manager, this.asyncDemand));
+            // requests wait on the i/o reactor for a connection, rather than each parking a thread
+            final CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                    .setConnectionManager(manager)
+                    .setUserAgent("wickrio-java")
+                    .setDefaultHeaders(defaultHeaders())
+                    .setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy())
+                    .setRetryStrategy(new RetryingHttpRequestRetryStrategy(5, TimeValue.ofSeconds(2L)))
+                    .build();
+            client.start();
+            // publish only once fully configured, both are read without the lock
+            this.asyncConnectionManager = manager;
+            this.httpAsyncClient = client;
+        }
+        return this.httpAsyncClient;
+    }
+
+    /**
+     * connection counts summed across the blocking and non-blocking pools
+     */
+    public PoolStats getTotalStats() {
+        final PoolStats stats = this.connectionManager.getTotalStats();
+        final PoolingAsyncClientConnectionManager async = this.asyncConnectionManager;
+        if (null == async) {
+            return stats;
+        }
+        return sum(stats, async.getTotalStats());
+    }
+
+    public PoolStats getStats(final WickrBot bot) {
+        final HttpRoute route = routeFor(bot);
+        if (null == route) {
+            return new PoolStats(0, 0, 0, 0);
+        }
+        final PoolStats stats = this.connectionManager.getStats(route);
+        final PoolingAsyncClientConnectionManager async = this.asyncConnectionManager;
+        if (null == async) {
+            return stats;
+        }
+        return sum(stats, async.getStats(route));
+    }
+
+    public int getMaxPerRoute(final WickrBot bot) {
+        final HttpRoute route = routeFor(bot);
+        return route != null ? this.connectionManager.getMaxPerRoute(route) : this.minPerRoute;
+    }
+
+    public long getEvictedCount() {
+        return this.evictedCount.get();
+    }
+
+    public long getResizeCount() {
+        return this.resizeCount.get();
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    private void maintain() {
+        try {
+            this.evict(this.connectionManager);
+            this.resize(this.connectionManager, this.demand);
+            final PoolingAsyncClientConnectionManager async = this.asyncConnectionManager;
+            if (async != null) {
+                this.evict(async);
+                this.resize(async, this.asyncDemand);
+            }
+        } catch (final Exception e) {
+            logger.warn("Unable to maintain http connection pools.", e);
+        }
+    }
+
+    private void evict(final ConnPoolControl<HttpRoute> pool) {
+        final int before = pool.getTotalStats().getAvailable();
+        pool.closeExpired();
+        pool.closeIdle(TimeValue.ofMilliseconds(IDLE_TIMEOUT_MSEC));
+        final int evicted = before - pool.getTotalStats().getAvailable();
+        if (evicted > 0) {
+            this.evictedCount.addAndGet(evicted);
+        }
+    }
+
+    private void resize(final ConnPoolControl<HttpRoute> pool, final Map<HttpRoute, RouteDemand> demand) {
+        for (final HttpRoute route : pool.getRoutes()) {
+            demand.putIfAbsent(route, new RouteDemand());
+        }
+        boolean resized = false;
+        for (final Map.Entry<HttpRoute, RouteDemand> entry : demand.entrySet()) {
+            final HttpRoute route = entry.getKey();
+            final RouteDemand routeDemand = entry.getValue();
+            final PoolStats stats = pool.getStats(route);
+            final int current = pool.getMaxPerRoute(route);
+            routeDemand.peak = Math.max(routeDemand.peak, stats.getLeased() + stats.getPending());
+            int next = current;
+            if (stats.getPending() > 0 && current < this.maxPerRoute) {
+                // requests are queued for a connection, grow by the queued demand
+                next = Math.min(this.maxPerRoute, current + stats.getPending());
+                routeDemand.peak = 0;
+                routeDemand.intervals = 0;
+            } else if (++routeDemand.intervals >= SHRINK_AFTER_INTERVALS) {
+                if (routeDemand.peak * 2 < current) {
+                    next = Math.max(this.minPerRoute, routeDemand.peak * 2);
+                }
+                routeDemand.peak = 0;
+                routeDemand.intervals = 0;
+            }
+            if (next != current) {
+                pool.setMaxPerRoute(route, next);
+                this.resizeCount.incrementAndGet();
+                resized = true;
+                logger.debug("Connections for route [" + route.getTargetHost() + "] resized from [" + current + "] to [" + next + "].");
+            }
+        }
+        if (resized) {
+            pool.setMaxTotal(totalFor(pool, demand));
+        }
+    }
+
+    private int totalFor(final ConnPoolControl<HttpRoute> pool, final Map<HttpRoute, RouteDemand> demand) {
+        // every route at its current size, plus room for one route not seen yet
+        final Set<HttpRoute> routes = new HashSet<>(pool.getRoutes());
+        routes.addAll(demand.keySet());
+        int total = this.minPerRoute;
+        for (final HttpRoute route : routes) {
+            total += pool.getMaxPerRoute(route);
+        }
+        return Math.max(DEFAULT_MAX_TOTAL, total);
+    }
+
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        this.maintenance.shutdownNow();
+        final CloseableHttpAsyncClient asyncClient = this.httpAsyncClient;
+        if (asyncClient != null) {
+            asyncClient.close(CloseMode.GRACEFUL);
+        }
+        this.httpClient.close(CloseMode.GRACEFUL);
+        this.connectionManager.close(CloseMode.GRACEFUL);
+    }
+
+    private static HttpRoute routeFor(final WickrBot bot) {
+        if (null == bot || null == bot.getContainerHost() || bot.getContainerHost().isBlank()) {
+            return null;
+        }
+        final HttpHost host = new HttpHost(bot.useSSL() ? "https" : "http", bot.getContainerHost(), bot.getContainerPort() > 0 ? bot.getContainerPort() : (bot.useSSL() ? 443 : 80));
+        return new HttpRoute(host, null, bot.useSSL());
+    }
+
+    private static PoolStats sum(final PoolStats first, final PoolStats second) {
+        return new PoolStats(
+                first.getLeased() + second.getLeased(),
+                first.getPending() + second.getPending(),
+                first.getAvailable() + second.getAvailable(),
+                first.getMax() + second.getMax());
+    }
+
+    private static List<Header> defaultHeaders() {
+        return Arrays.asList(
+                new BasicHeader("Cache-Control", "no-cache, must-revalidate"),
+                new BasicHeader("Pragma", "no-cache"));
+    }
+
+    private static PoolingHttpClientConnectionManager createManager(final WickrSSL ssl) {
+        ConnectionSocketFactory sslFactory = null;
+        try {
+            sslFactory = new SSLConnectionSocketFactory(createSSLContext(ssl), NoopHostnameVerifier.INSTANCE);
+        } catch (final Exception e) {
+            logger.warn("Unable to create SSL socket factory.", e);
+        }
+        final RegistryBuilder<ConnectionSocketFactory> builder = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", new PlainConnectionSocketFactory());
+        if (sslFactory != null) {
+            builder.register("https", sslFactory);
+        }
+        return new PoolingHttpClientConnectionManager(builder.build());
+    }
+
+    private static SSLContext createSSLContext(final WickrSSL ssl) throws Exception {
+        TrustStrategy acceptingTrustStrategy = (cert, authType) -> true;
+        if (ssl != null && ssl.hasKeystore()) {
+            return SSLContexts.custom()
+                    .setKeyStoreType(ssl.getKeystoreType())
+                    .loadTrustMaterial(ssl.getKeystoreURL(), ssl.getKeystorePassword(), acceptingTrustStrategy).build();
+        } else {
+            return SSLContexts.custom()
+                    .loadTrustMaterial(acceptingTrustStrategy).build();
+        }
+    }
+
+    private static class RetryingHttpRequestRetryStrategy implements HttpRequestRetryStrategy {
+        private final int maxRetries;
+
+        private final TimeValue defaultRetryInterval;
+
+        private final Set<Class<? extends IOException>> nonRetriableIOExceptionClasses;
+
+        private final Set<Class<? extends IOException>> retriableIOExceptionClasses;
+
+        private final Set<Integer> retriableCodes;
+
+        public RetryingHttpRequestRetryStrategy(
+                final int maxRetries,
+                final TimeValue defaultRetryInterval) {
+            this.maxRetries = maxRetries;
+            this.defaultRetryInterval = defaultRetryInterval;
+            this.nonRetriableIOExceptionClasses = new HashSet<>(Arrays.asList(
+                    InterruptedIOException.class,
+                    UnknownHostException.class,
+                    ConnectException.class,
+                    ConnectionClosedException.class,
+                    SSLException.class));
+            this.retriableIOExceptionClasses = new HashSet<>(Arrays.asList(
+                    NoHttpResponseException.class));
+            this.retriableCodes = new HashSet<>(
+                    Arrays.asList(
+                            HttpStatus.SC_TOO_MANY_REQUESTS,
+                            HttpStatus.SC_SERVICE_UNAVAILABLE));
+        }
+
+        @Override
+        public boolean retryRequest(
+                final HttpRequest request,
+                final IOException exception,
+                final int execCount,
+                final HttpContext context) {
+            if (execCount > this.maxRetries) {
+                return false;
+            }
+            if (request instanceof CancellableDependency && ((CancellableDependency) request).isCancelled()) {
+                return false;
+            }
+            if (ExceptionUtils.isException(exception, this.nonRetriableIOExceptionClasses)) {
+                return false;
+            }
+            if (ExceptionUtils.isException(exception, this.retriableIOExceptionClasses)) {
+                return true;
+            }
+            return Method.isIdempotent(request.getMethod());
+        }
+
+        @Override
+        public boolean retryRequest(
+                final HttpResponse response,
+                final int execCount,
+                final HttpContext context) {
+            return execCount <= this.maxRetries && retriableCodes.contains(response.getCode());
+        }
+
+        @Override
+        public TimeValue getRetryInterval(
+                final HttpResponse response,
+                final int execCount,
+                final HttpContext context) {
+            final Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+            TimeValue retryAfter = null;
+            if (header != null) {
+                final String value = header.getValue();
+                try {
+                    retryAfter = TimeValue.ofSeconds(Long.parseLong(value));
+                } catch (final NumberFormatException ignore) {
+                    final Date retryAfterDate = DateUtils.parseDate(value);
+                    if (retryAfterDate != null) {
+                        retryAfter = TimeValue.ofMilliseconds(retryAfterDate.getTime() - System.currentTimeMillis());
+                    }
+                }
+                if (TimeValue.isPositive(retryAfter)) {
+                    return retryAfter;
+                }
+            }
+            return this.defaultRetryInterval;
+        }
+    }
+}
@@ -30,76 +30,123 @@ import com.wickr.java.WickrEventQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ArrayBlockingWickrEventQueue implements WickrEventQueue {
     private static final Logger logger = LoggerFactory.getLogger(ArrayBlockingWickrEventQueue.class);
 
     private final BlockingQueue<WickrEvent> queue;
 
-    private final ExecutorService executor;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
 
     public ArrayBlockingWickrEventQueue() {
         this(256);
     }
 
+    /**
+     * a queue which blocks producers for up to 5 seconds once full, then rejects the event. before overflow
+     * policies the event was instead handed to a background thread to add whenever room became available.
+     */
     public ArrayBlockingWickrEventQueue(final int queueSize) {
+        this(queueSize, OverflowPolicy.block(5, TimeUnit.SECONDS));
+    }
+
+    public ArrayBlockingWickrEventQueue(final int queueSize, final OverflowPolicy overflowPolicy) {
+        if (null == overflowPolicy) {
+            throw new IllegalArgumentException("Overflow policy cannot be null.");
+        }
         this.queue = new ArrayBlockingQueue<>(queueSize);
-        this.executor = createSingleThreadedExecutor();
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return this.overflowPolicy;
+    }
+
+    @Override
+    public int size() {
+        return this.queue.size() + this.overflowPolicy.getPendingCount();
     }
 
     @Override
     public boolean add(final WickrEvent event) {
-        // attempt to add immediately
-        if (this.queue.offer(event)) {
+        if (this.closed.get()) {
+            throw new IllegalStateException();
+        }
+        if (this.overflowPolicy.offer(this.queue, event)) {
             return true;
         }
-        // if unable to add now, attempt to add later
-        final Runnable worker = () -> {
-            try {
-                queue.put(event);
-            } catch (final Exception e) {
-                logger.warn("Unable to add event to queue.", e);
-            }
-        };
-        if (this.executor.isShutdown()) {
+        logger.debug("Event queue full, event [" + event.getMessage() + "] rejected by overflow policy [" + this.overflowPolicy + "].");
+        return false;
+    }
+
+    @Override
+    public boolean tryAdd(final WickrEvent event) {
+        if (this.closed.get()) {
             throw new IllegalStateException();
         }
-        try {
-            this.executor.submit(worker);
-            return true;
-        } catch (final Exception e) {
-            logger.warn("Unable to submit worker event to executor.", e);
+        if (null == event) {
             return false;
         }
+        // events held back by the policy go first, keeping events in order
+        return this.overflowPolicy.tryOffer(this.queue, event);
     }
 
     @Override
     public WickrEvent remove(final int timeout, final TimeUnit unit) throws InterruptedException {
+        final WickrEvent event;
         if (timeout > 0) {
-            return this.queue.poll(timeout, unit);
+            event = this.queue.poll(timeout, unit);
         } else {
-            return this.queue.take();
+            event = this.queue.take();
         }
+        if (event != null) {
+            this.overflowPolicy.refill(this.queue);
+        }
+        return event;
     }
 
     @Override
-    public void shutdown() {
-        if (!this.executor.isShutdown()) {
-            this.executor.shutdownNow();
+    public int drainTo(final Collection<? super WickrEvent> events, final int maxEvents, final int timeout, final TimeUnit unit) throws InterruptedException {
+        if (maxEvents <= 0) {
+            return 0;
+        }
+        final long deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : 0;
+        int count = 0;
+        while (true) {
+            final int drained = this.queue.drainTo(events, maxEvents - count);
+            if (drained > 0) {
+                count += drained;
+                this.overflowPolicy.refill(this.queue);
+            }
+            if (count >= maxEvents || (count > 0 && timeout <= 0)) {
+                return count;
+            }
+            final WickrEvent event;
+            if (timeout > 0) {
+                event = this.queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } else {
+                event = this.queue.take();
+            }
+            if (null == event) {
+                return count;
+            }
+            events.add(event);
+            count++;
+            this.overflowPolicy.refill(this.queue);
         }
-        this.queue.clear();
     }
 
-    private static final AtomicInteger threadCount = new AtomicInteger();
-
-    private static ExecutorService createSingleThreadedExecutor() {
-        return Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r);
-            t.setDaemon(true);
-            t.setName(ArrayBlockingWickrEventQueue.class.getSimpleName() + "-Worker-" + threadCount.incrementAndGet());
-            return t;
-        });
+    @Override
+    public void shutdown() {
+        this.closed.getAndSet(true);
+        this.overflowPolicy.shutdown();
+        this.queue.clear();
     }
 }
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrAsyncListener;
+import com.wickr.java.WickrEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * an asynchronous listener with a cap on the number of events it may have in flight
+ * <p>
+ * capacity is only returned once the stage returned by the listener completes, so a slow listener applies
+ * back pressure to the dispatching thread rather than accumulating unbounded work.
+ *
+ * @date 10/17/26.
+ */
+public class BoundedAsyncListener {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedAsyncListener.class);
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    private final WickrAsyncListener listener;
+
+    private final int maxInFlight;
+
+    private final Semaphore permits;
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    public BoundedAsyncListener(final WickrAsyncListener listener, final int maxInFlight) {
+        if (null == listener) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("Maximum in-flight events must be positive.");
+        }
+        this.listener = listener;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    public WickrAsyncListener getListener() {
+        return this.listener;
+    }
+
+    public int getMaxInFlight() {
+        return this.maxInFlight;
+    }
+
+    public int getInFlightCount() {
+        return this.maxInFlight - this.permits.availablePermits();
+    }
+
+    public long getCompletedCount() {
+        return this.completed.get();
+    }
+
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * hands the event to the listener once both this listener and the shared limit have capacity, blocking
+     * until they do
+     *
+     * @return a future completed once the listener has finished with the event, whether or not it succeeded
+     */
+    public CompletableFuture<Void> invoke(final WickrEvent event, final Semaphore sharedPermits) throws InterruptedException {
+        sharedPermits.acquire();
+        try {
+            this.permits.acquire();
+        } catch (final InterruptedException e) {
+            sharedPermits.release();
+            throw e;
+        }
+
+        CompletionStage<?> stage;
+        try {
+            stage = this.listener.messageReceived(event.getBot(), event.getMessage());
+        } catch (final Exception e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        if (null == stage) {
+            stage = CompletableFuture.completedFuture(null);
+        }
+
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        stage.whenComplete((result, e) -> {
+            this.permits.release();
+            sharedPermits.release();
+            if (e != null) {
+                this.failed.incrementAndGet();
+                logger.warn("Asynchronous listener [" + this.listener + "] failed to process message from bot [" + event.getBot() + "].", e);
+            } else {
+                this.completed.incrementAndGet();
+            }
+            done.complete(null);
+        });
+        return done;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedAsyncListener{" +
+                "listener=" + listener +
+                ", maxInFlight=" + maxInFlight +
+                '}';
+    }
+}
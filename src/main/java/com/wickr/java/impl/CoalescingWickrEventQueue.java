@@ -0,0 +1,333 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrEventQueue;
+import com.wickr.java.WickrExecutorFactory;
+import com.wickr.java.model.Message;
+import com.wickr.java.model.MessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * a queue decorator merging bursts of room control messages into a single event per room
+ * <p>
+ * the first room modification for a room is held for the window, and any further modifications of the same type to
+ * the same room within the window are merged into it as one net change. a modification of a different type is held
+ * after it rather than merged, so listeners subscribed to one type still see it. the held events are added to the
+ * queue in order once the window ends, or earlier if any other event for the same room arrives so events within a
+ * room keep their order.
+ *
+ * @date 10/17/26.
+ */
+public class CoalescingWickrEventQueue implements WickrEventQueue {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingWickrEventQueue.class);
+
+    private static final Set<MessageType> COALESCED_TYPES = EnumSet.of(MessageType.MODIFY_ROOM, MessageType.MODIFY_ROOM_MEMBERS, MessageType.MODIFY_ROOM_PARAMETERS);
+
+    private static class PendingEvents {
+        // held in arrival order, consecutive events of the same type are merged
+        private final List<WickrEvent> events = new ArrayList<>(2);
+
+        private int merged = 0;
+
+        private PendingEvents(final WickrEvent event) {
+            this.events.add(event);
+        }
+
+        private PendingEvents(final List<WickrEvent> events) {
+            this.events.addAll(events);
+        }
+
+        /**
+         * @return true if the event was merged into the last one held
+         */
+        private boolean append(final WickrEvent event) {
+            final int last = this.events.size() - 1;
+            final Message previous = this.events.get(last).getMessage();
+            if (Message.canCoalesceControl(previous, event.getMessage())) {
+                this.events.set(last, new WickrEvent(event.getBot(), Message.coalesceControl(previous, event.getMessage())));
+                this.merged++;
+                return true;
+            }
+            this.events.add(event);
+            return false;
+        }
+    }
+
+    private final WickrEventQueue delegate;
+
+    private final int windowMsec;
+
+    private final ScheduledExecutorService flusher;
+
+    private final Map<String, PendingEvents> pending = new HashMap<>();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private boolean closed = false;
+
+    public CoalescingWickrEventQueue(final WickrEventQueue delegate, final int windowMsec) {
+        this(delegate, windowMsec, WickrExecutorFactory.platform());
+    }
+
+    public CoalescingWickrEventQueue(final WickrEventQueue delegate, final int windowMsec, final WickrExecutorFactory executors) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("Event queue cannot be null.");
+        }
+        if (windowMsec <= 0) {
+            throw new IllegalArgumentException("Coalescing window must be positive.");
+        }
+        this.delegate = delegate;
+        this.windowMsec = windowMsec;
+        this.flusher = executors.newScheduledExecutor("WickIO-EventCoalescer", 1);
+    }
+
+    public WickrEventQueue getDelegate() {
+        return this.delegate;
+    }
+
+    // the number of control events merged into an earlier event of the same type for the same room
+    public long getCoalescedCount() {
+        return this.coalesced.get();
+    }
+
+    @Override
+    public boolean add(final WickrEvent event) {
+        return this.add(event, true);
+    }
+
+    @Override
+    public boolean tryAdd(final WickrEvent event) {
+        return this.add(event, false);
+    }
+
+    /**
+     * hold or merge room control events, and add everything else straight to the queue. the queue is never called
+     * while holding the lock, so a full queue only stalls the producer adding to it.
+     */
+    private boolean add(final WickrEvent event, final boolean block) {
+        final String key = null == event || null == event.getMessage() ? null : keyFor(event);
+        if (null == key) {
+            return block ? this.delegate.add(event) : this.delegate.tryAdd(event);
+        }
+        final PendingEvents held;
+        final PendingEvents scheduled;
+        synchronized (this) {
+            if (this.closed) {
+                throw new IllegalStateException("Coalescing queue is closed.");
+            }
+            if (isCoalesced(event.getMessage())) {
+                final PendingEvents existing = this.pending.get(key);
+                if (existing != null) {
+                    if (existing.append(event)) {
+                        this.coalesced.incrementAndGet();
+                    }
+                    return true;
+                }
+                scheduled = new PendingEvents(event);
+                this.pending.put(key, scheduled);
+                held = null;
+            } else {
+                // release any held control event first, so the room's events stay in order
+                held = this.pending.remove(key);
+                scheduled = null;
+            }
+        }
+        if (scheduled != null) {
+            try {
+                this.flusher.schedule(() -> this.flushPending(key, scheduled), this.windowMsec, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                this.flushPending(key, scheduled);
+            }
+            return true;
+        }
+        if (held != null) {
+            if (block) {
+                this.publish(held);
+            } else {
+                for (int i = 0; i < held.events.size(); i++) {
+                    if (!this.delegate.tryAdd(held.events.get(i))) {
+                        // the queue is full, keep the rest held and let the caller retry
+                        final PendingEvents remaining = new PendingEvents(held.events.subList(i, held.events.size()));
+                        if (this.restore(key, remaining)) {
+                            return false;
+                        }
+                        this.publish(remaining);
+                        break;
+                    }
+                }
+            }
+        }
+        return block ? this.delegate.add(event) : this.delegate.tryAdd(event);
+    }
+
+    /**
+     * flush the held event for the room, unless it was already released and replaced by a newer one
+     */
+    private void flushPending(final String key, final PendingEvents expected) {
+        synchronized (this) {
+            if (this.pending.get(key) != expected) {
+                return;
+            }
+            this.pending.remove(key);
+        }
+        this.publish(expected);
+    }
+
+    /**
+     * put back a held event which could not be added, merging any control event held since. returns false once
+     * closed, when the event can no longer be held.
+     */
+    private synchronized boolean restore(final String key, final PendingEvents held) {
+        if (this.closed) {
+            return false;
+        }
+        final PendingEvents newer = this.pending.get(key);
+        if (newer != null) {
+            // the held events are older, so they go first
+            final List<WickrEvent> events = new ArrayList<>(newer.events);
+            newer.events.clear();
+            newer.events.addAll(held.events);
+            for (final WickrEvent event : events) {
+                newer.append(event);
+            }
+            newer.merged += held.merged;
+        } else {
+            this.pending.put(key, held);
+            try {
+                this.flusher.schedule(() -> this.flushPending(key, held), this.windowMsec, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                // shutting down, the held event is handed over with the rest
+            }
+        }
+        return true;
+    }
+
+    /**
+     * remove and return every control event still held, without adding them to the queue
+     */
+    public synchronized List<WickrEvent> drainPending() {
+        final List<WickrEvent> held = new ArrayList<>(this.pending.size());
+        for (final PendingEvents events : this.pending.values()) {
+            held.addAll(events.events);
+        }
+        this.pending.clear();
+        return held;
+    }
+
+    private void publish(final PendingEvents held) {
+        if (held.merged > 0) {
+            logger.trace("Coalesced [" + held.merged + "] control events for room [" + held.events.get(0).getMessage().getGroupId() + "].");
+        }
+        for (final WickrEvent event : held.events) {
+            if (!this.delegate.add(event)) {
+                logger.warn("Unable to add coalesced control event [" + event.getMessage() + "] to queue.");
+            }
+        }
+    }
+
+    private static boolean isCoalesced(final Message message) {
+        return message.hasControl() && COALESCED_TYPES.contains(message.getMessageType());
+    }
+
+    private static String keyFor(final WickrEvent event) {
+        final String groupId = event.getMessage().getGroupId();
+        if (null == groupId || groupId.isEmpty()) {
+            return null;
+        }
+        return event.getBot() != null ? event.getBot().getUser() + "/" + groupId : groupId;
+    }
+
+    @Override
+    public WickrEvent remove(final int timeout, final TimeUnit unit) throws InterruptedException {
+        return this.delegate.remove(timeout, unit);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super WickrEvent> events, final int maxEvents, final int timeout, final TimeUnit unit) throws InterruptedException {
+        return this.delegate.drainTo(events, maxEvents, timeout, unit);
+    }
+
+    @Override
+    public void acknowledge(final WickrEvent event) {
+        this.delegate.acknowledge(event);
+    }
+
+    @Override
+    public int size() {
+        final int size = this.delegate.size();
+        synchronized (this) {
+            if (size < 0) {
+                return size;
+            }
+            int held = 0;
+            for (final PendingEvents events : this.pending.values()) {
+                held += events.events.size();
+            }
+            return size + held;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        synchronized (this) {
+            if (!this.pending.isEmpty()) {
+                return false;
+            }
+        }
+        return this.delegate.isEmpty();
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        final List<PendingEvents> held;
+        synchronized (this) {
+            // hand over anything still held, so a durable queue can keep it
+            held = new ArrayList<>(this.pending.values());
+            this.pending.clear();
+            this.closed = true;
+        }
+        this.flusher.shutdownNow();
+        for (final PendingEvents events : held) {
+            this.publish(events);
+        }
+        this.delegate.shutdown();
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrEventQueue;
+import com.wickr.java.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * an event queue which drops events already seen within a recent time window before passing them to another queue
+ * <p>
+ * events are keyed by bot and message id, or optionally across bots by group, send time and sender. keys are kept
+ * as 64-bit hashes in two generations of open-addressed tables; when the current generation is full or the
+ * window has elapsed the older generation is discarded, so memory stays bounded regardless of volume.
+ *
+ * @date 10/17/26.
+ */
+public class DeduplicatingWickrEventQueue implements WickrEventQueue {
+
+    static final class LongHashSet {
+        // zero marks an empty slot
+        private final long[] slots;
+
+        private final int mask;
+
+        private final int maxSize;
+
+        private int size = 0;
+
+        LongHashSet(final int capacity) {
+            final int tableSize = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+            this.slots = new long[tableSize];
+            this.mask = tableSize - 1;
+            this.maxSize = tableSize / 2;
+        }
+
+        boolean contains(final long key) {
+            for (int i = indexFor(key); ; i = (i + 1) & this.mask) {
+                final long slot = this.slots[i];
+                if (slot == 0) {
+                    return false;
+                } else if (slot == key) {
+                    return true;
+                }
+            }
+        }
+
+        void add(final long key) {
+            for (int i = indexFor(key); ; i = (i + 1) & this.mask) {
+                final long slot = this.slots[i];
+                if (slot == 0) {
+                    this.slots[i] = key;
+                    this.size++;
+                    return;
+                } else if (slot == key) {
+                    return;
+                }
+            }
+        }
+
+        void remove(final long key) {
+            int gap = indexFor(key);
+            while (this.slots[gap] != key) {
+                if (this.slots[gap] == 0) {
+                    return;
+                }
+                gap = (gap + 1) & this.mask;
+            }
+            // shift later keys of the probe run back into the gap, so lookups do not stop early
+            for (int i = (gap + 1) & this.mask; this.slots[i] != 0; i = (i + 1) & this.mask) {
+                final int home = indexFor(this.slots[i]);
+                if (((i - home) & this.mask) >= ((i - gap) & this.mask)) {
+                    this.slots[gap] = this.slots[i];
+                    gap = i;
+                }
+            }
+            this.slots[gap] = 0;
+            this.size--;
+        }
+
+        boolean isFull() {
+            return this.size >= this.maxSize;
+        }
+
+        private void clear() {
+            Arrays.fill(this.slots, 0);
+            this.size = 0;
+        }
+
+        int indexFor(final long key) {
+            return (int) (key ^ (key >>> 32)) & this.mask;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(DeduplicatingWickrEventQueue.class);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final WickrEventQueue delegate;
+
+    private final long windowNanos;
+
+    private final boolean acrossBots;
+
+    private LongHashSet current;
+
+    private LongHashSet previous;
+
+    private long rotatedAt = System.nanoTime();
+
+    private final AtomicLong duplicateCount = new AtomicLong();
+
+    public DeduplicatingWickrEventQueue(final WickrEventQueue delegate, final int windowMsec) {
+        this(delegate, windowMsec, 65536, false);
+    }
+
+    public DeduplicatingWickrEventQueue(final WickrEventQueue delegate, final int windowMsec, final int maxKeysPerWindow, final boolean acrossBots) {
+        if (null == delegate) {
+            throw new IllegalArgumentException("Event queue cannot be null.");
+        }
+        if (windowMsec <= 0 || maxKeysPerWindow <= 0) {
+            throw new IllegalArgumentException("De-duplication window and size must be positive.");
+        }
+        this.delegate = delegate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMsec);
+        this.acrossBots = acrossBots;
+        this.current = new LongHashSet(maxKeysPerWindow);
+        this.previous = new LongHashSet(maxKeysPerWindow);
+    }
+
+    public WickrEventQueue getDelegate() {
+        return this.delegate;
+    }
+
+    // the number of events dropped as duplicates
+    public long getDuplicateCount() {
+        return this.duplicateCount.get();
+    }
+
+    @Override
+    public boolean add(final WickrEvent event) {
+        if (null == event) {
+            return false;
+        }
+        final long key = this.keyFor(event);
+        if (key != 0 && !this.markSeen(key)) {
+            this.duplicateCount.incrementAndGet();
+            logger.debug("Dropping duplicate event [" + event.getMessage() + "] for bot [" + event.getBot() + "].");
+            return true;
+        }
+        // mark before adding so a concurrent duplicate is dropped, but forget the key if the event is rejected
+        final boolean added;
+        try {
+            added = this.delegate.add(event);
+        } catch (final RuntimeException e) {
+            this.unmarkSeen(key);
+            throw e;
+        }
+        if (!added) {
+            this.unmarkSeen(key);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean tryAdd(final WickrEvent event) {
+        if (null == event) {
+            return false;
+        }
+        final long key = this.keyFor(event);
+        if (0 == key) {
+            return this.delegate.tryAdd(event);
+        }
+        // only mark the event as seen once it is added, the caller may retry with add
+        synchronized (this) {
+            if (this.isSeen(key)) {
+                this.duplicateCount.incrementAndGet();
+                return true;
+            }
+            if (!this.delegate.tryAdd(event)) {
+                return false;
+            }
+            this.markSeen(key);
+            return true;
+        }
+    }
+
+    @Override
+    public WickrEvent remove(final int timeout, final TimeUnit unit) throws InterruptedException {
+        return this.delegate.remove(timeout, unit);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super WickrEvent> events, final int maxEvents, final int timeout, final TimeUnit unit) throws InterruptedException {
+        return this.delegate.drainTo(events, maxEvents, timeout, unit);
+    }
+
+    @Override
+    public void acknowledge(final WickrEvent event) {
+        this.delegate.acknowledge(event);
+    }
+
+    @Override
+    public int size() {
+        return this.delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.delegate.isEmpty();
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        this.delegate.shutdown();
+    }
+
+    /**
+     * record the key as seen, returning false if it was already seen within the window
+     */
+    private synchronized boolean markSeen(final long key) {
+        if (this.isSeen(key)) {
+            return false;
+        }
+        this.current.add(key);
+        return true;
+    }
+
+    private synchronized void unmarkSeen(final long key) {
+        if (key != 0) {
+            this.current.remove(key);
+            this.previous.remove(key);
+        }
+    }
+
+    private synchronized boolean isSeen(final long key) {
+        final long now = System.nanoTime();
+        if (this.current.isFull() || now - this.rotatedAt >= this.windowNanos) {
+            // discard the oldest generation
+            final LongHashSet oldest = this.previous;
+            oldest.clear();
+            this.previous = this.current;
+            this.current = oldest;
+            this.rotatedAt = now;
+        }
+        return this.current.contains(key) || this.previous.contains(key);
+    }
+
+    private long keyFor(final WickrEvent event) {
+        final Message message = event.getMessage();
+        if (null == message) {
+            return 0;
+        }
+        long hash = FNV_OFFSET;
+        if (this.acrossBots && message.getGroupId() != null && message.getTimeSentMilliseconds() != null) {
+            hash = hash(hash, message.getGroupId());
+            hash = hash(hash, message.getTimeSentMilliseconds().toString());
+            hash = hash(hash, message.getSender());
+        } else if (message.getId() != null) {
+            hash = hash(hash, event.getBot() != null ? event.getBot().getUser() : null);
+            hash = hash(hash, message.getId());
+        } else {
+            // nothing to identify the message by
+            return 0;
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long hash(long hash, final String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= FNV_PRIME;
+            }
+        }
+        // separator between fields
+        hash ^= 0xff;
+        hash *= FNV_PRIME;
+        return hash;
+    }
+}
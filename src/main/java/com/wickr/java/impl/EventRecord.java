@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.model.Message;
+import com.wickr.java.util.JsonUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * the json record written to disk for an event, holding the user of the bot and the message
+ * <p>
+ * shared by the durable queue, the spill file and the retained event log, so they all read and write events
+ * the same way. the bot is resolved again by user when the event is read back.
+ *
+ * @date 10/17/26.
+ */
+class EventRecord {
+    @JsonProperty("bot")
+    private String bot;
+
+    @JsonProperty("message")
+    private Message message;
+
+    @Deprecated
+    public EventRecord() {
+
+    }
+
+    private EventRecord(final String bot, final Message message) {
+        this.bot = bot;
+        this.message = message;
+    }
+
+    static byte[] encode(final WickrEvent event) throws IOException {
+        final WickrBot bot = event.getBot();
+        return JsonUtils.fromEntity(new EventRecord(bot != null ? bot.getUser() : null, event.getMessage())).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * parse a record from the given bytes, returns null when they are empty
+     */
+    static EventRecord decode(final byte[] data, final int offset, final int length) throws IOException {
+        return JsonUtils.toEntity(new ByteArrayInputStream(data, offset, length), EventRecord.class);
+    }
+
+    static EventRecord decode(final byte[] data) throws IOException {
+        return decode(data, 0, data.length);
+    }
+
+    String getBot() {
+        return this.bot;
+    }
+
+    Message getMessage() {
+        return this.message;
+    }
+}
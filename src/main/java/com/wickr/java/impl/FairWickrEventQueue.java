@@ -0,0 +1,259 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrEventQueue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * an event queue which keeps a separate queue per bot and removes events from them by weighted round-robin, so
+ * that a busy bot cannot starve the events of other bots
+ * <p>
+ * each time a bot gets a turn it may have up to its weight in events removed before moving to the next bot.
+ *
+ * @date 10/17/26.
+ */
+public class FairWickrEventQueue implements WickrEventQueue {
+
+    private static class BotQueue {
+        private final Deque<WickrEvent> events = new ArrayDeque<>();
+
+        private int weight = 1;
+
+        private int deficit = 0;
+
+        private boolean active = false;
+    }
+
+    private final int capacityPerBot;
+
+    private final int offerTimeoutMsec;
+
+    private final Map<String, BotQueue> queues = new HashMap<>();
+
+    private final Map<String, Integer> weights;
+
+    // bots with pending events, in round-robin order
+    private final Deque<BotQueue> activeQueues = new ArrayDeque<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private boolean closed = false;
+
+    public FairWickrEventQueue() {
+        this(256, Map.of());
+    }
+
+    public FairWickrEventQueue(final int capacityPerBot, final Map<String, Integer> weights) {
+        this(capacityPerBot, weights, 5000);
+    }
+
+    public FairWickrEventQueue(final int capacityPerBot, final Map<String, Integer> weights, final int offerTimeoutMsec) {
+        if (capacityPerBot <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive.");
+        }
+        this.capacityPerBot = capacityPerBot;
+        this.offerTimeoutMsec = offerTimeoutMsec;
+        this.weights = new HashMap<>(weights != null ? weights : Map.of());
+    }
+
+    public void setWeight(final WickrBot bot, final int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight for bot [" + bot + "] must be positive.");
+        }
+        this.lock.lock();
+        try {
+            this.weights.put(bot.getUser(), weight);
+            final BotQueue queue = this.queues.get(bot.getUser());
+            if (queue != null) {
+                queue.weight = weight;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        this.lock.lock();
+        try {
+            int size = 0;
+            for (final BotQueue queue : this.activeQueues) {
+                size += queue.events.size();
+            }
+            return size;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public int size(final WickrBot bot) {
+        this.lock.lock();
+        try {
+            final BotQueue queue = this.queues.get(bot.getUser());
+            return queue != null ? queue.events.size() : 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryAdd(final WickrEvent event) {
+        if (null == event || null == event.getBot()) {
+            return false;
+        }
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException();
+            }
+            final BotQueue queue = this.queueFor(event.getBot());
+            if (queue.events.size() >= this.capacityPerBot) {
+                return false;
+            }
+            this.enqueue(queue, event);
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean add(final WickrEvent event) {
+        if (null == event || null == event.getBot()) {
+            return false;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(Math.max(0, this.offerTimeoutMsec));
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                throw new IllegalStateException();
+            }
+            final BotQueue queue = this.queueFor(event.getBot());
+            while (queue.events.size() >= this.capacityPerBot) {
+                if (remaining <= 0 || this.closed) {
+                    return false;
+                }
+                remaining = this.notFull.awaitNanos(remaining);
+            }
+            this.enqueue(queue, event);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public WickrEvent remove(final int timeout, final TimeUnit unit) throws InterruptedException {
+        long remaining = timeout > 0 ? unit.toNanos(timeout) : Long.MAX_VALUE;
+        this.lock.lockInterruptibly();
+        try {
+            while (this.activeQueues.isEmpty()) {
+                if (this.closed) {
+                    return null;
+                }
+                if (timeout > 0) {
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    remaining = this.notEmpty.awaitNanos(remaining);
+                } else {
+                    this.notEmpty.await();
+                }
+            }
+            return this.removeNext();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.queues.clear();
+            this.activeQueues.clear();
+            this.notEmpty.signalAll();
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private WickrEvent removeNext() {
+        final BotQueue queue = this.activeQueues.peekFirst();
+        if (queue.deficit <= 0) {
+            // start of this bot's turn
+            queue.deficit = queue.weight;
+        }
+        final WickrEvent event = queue.events.pollFirst();
+        queue.deficit--;
+        if (queue.events.isEmpty()) {
+            queue.deficit = 0;
+            queue.active = false;
+            this.activeQueues.pollFirst();
+        } else if (queue.deficit <= 0) {
+            // turn is over, move to the back of the line
+            this.activeQueues.addLast(this.activeQueues.pollFirst());
+        }
+        this.notFull.signalAll();
+        return event;
+    }
+
+    private void enqueue(final BotQueue queue, final WickrEvent event) {
+        queue.events.addLast(event);
+        if (!queue.active) {
+            queue.active = true;
+            this.activeQueues.addLast(queue);
+        }
+        this.notEmpty.signal();
+    }
+
+    private BotQueue queueFor(final WickrBot bot) {
+        return this.queues.computeIfAbsent(bot.getUser(), user -> {
+            final BotQueue queue = new BotQueue();
+            queue.weight = this.weights.getOrDefault(user, 1);
+            return queue;
+        });
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrComponent;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrExecutorFactory;
+import com.wickr.java.WickrListener;
+import com.wickr.java.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * isolates a listener behind its own bounded queue and worker thread
+ * <p>
+ * a listener that is slow or throws only affects its own queue, events for other listeners keep flowing. when the
+ * queue is full the overflow policy decides whether to wait or drop events.
+ *
+ * @date 10/17/26.
+ */
+public class ListenerBulkhead implements WickrListener, WickrComponent {
+    private static final Logger logger = LoggerFactory.getLogger(ListenerBulkhead.class);
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final AtomicInteger bulkheadCount = new AtomicInteger();
+
+    // how long an idle worker waits before checking whether the bulkhead was stopped
+    private static final long POLL_MSEC = 100;
+
+    private final String name;
+
+    private final WickrListener listener;
+
+    private final BlockingQueue<WickrEvent> queue;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Thread worker;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    // guards taking an event together with marking the worker busy, so isIdle never sees an event in neither place
+    private final Object idleLock = new Object();
+
+    private volatile boolean busy = false;
+
+    private volatile boolean waiting = false;
+
+    private final ConcurrentLinkedQueue<WickrEvent> rejected = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public ListenerBulkhead(final WickrListener listener) {
+        this(listener, DEFAULT_CAPACITY, OverflowPolicy.dropNewest(), WickrExecutorFactory.platform());
+    }
+
+    public ListenerBulkhead(final WickrListener listener, final int capacity, final OverflowPolicy policy, final WickrExecutorFactory executors) {
+        this("WickIO-Listener-" + bulkheadCount.incrementAndGet(), listener, capacity, policy, executors);
+    }
+
+    /**
+     * @param name the name of the worker thread
+     */
+    public ListenerBulkhead(final String name, final WickrListener listener, final int capacity, final OverflowPolicy policy, final WickrExecutorFactory executors) {
+        if (null == name || name.isEmpty()) {
+            throw new IllegalArgumentException("Name cannot be empty.");
+        }
+        if (null == listener) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Listener queue capacity must be positive.");
+        }
+        if (null == policy) {
+            throw new IllegalArgumentException("Overflow policy cannot be null.");
+        }
+        this.name = name;
+        this.listener = listener;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = policy;
+        this.worker = executors.newThread(name, this::processEventsUntilClosed);
+        this.worker.start();
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public WickrListener getListener() {
+        return this.listener;
+    }
+
+    @Override
+    public void messageReceived(final WickrBot bot, final Message message) {
+        final WickrEvent event = new WickrEvent(bot, message);
+        if (this.closed.get()) {
+            this.rejected.add(event);
+            return;
+        }
+        if (!this.overflowPolicy.offer(this.queue, event)) {
+            if (this.closed.get() || Thread.currentThread().isInterrupted()) {
+                // stopped while waiting for room, hand the event back from stop() rather than dropping it
+                this.rejected.add(event);
+                return;
+            }
+            logger.debug("Queue for listener [" + this.listener + "] is full, dropped message from bot [" + bot + "].");
+        } else if (this.waiting) {
+            synchronized (this.idleLock) {
+                this.idleLock.notify();
+            }
+        }
+    }
+
+    private void processEventsUntilClosed() {
+        while (!this.closed.get()) {
+            final WickrEvent event;
+            synchronized (this.idleLock) {
+                // flag waiting before looking, a producer adding after the look then always notifies
+                this.waiting = true;
+                event = this.queue.poll();
+                if (null == event) {
+                    try {
+                        // stop() sets closed before notifying under this lock, so the wake up cannot be missed
+                        if (!this.closed.get()) {
+                            this.idleLock.wait(POLL_MSEC);
+                        }
+                    } catch (final InterruptedException e) {
+                        break;
+                    } finally {
+                        this.waiting = false;
+                    }
+                    continue;
+                }
+                this.waiting = false;
+                this.busy = true;
+            }
+            this.overflowPolicy.refill(this.queue);
+            final long start = System.nanoTime();
+            try {
+                this.listener.messageReceived(event.getBot(), event.getMessage());
+            } catch (final Exception e) {
+                this.failed.incrementAndGet();
+                logger.warn("Listener [" + this.listener + "] failed to process message from bot [" + event.getBot() + "].", e);
+            } finally {
+                final long latency = System.nanoTime() - start;
+                this.processed.incrementAndGet();
+                this.totalLatencyNanos.addAndGet(latency);
+                this.maxLatencyNanos.accumulateAndGet(latency, Math::max);
+                this.busy = false;
+            }
+        }
+    }
+
+    public int getQueueSize() {
+        return this.queue.size();
+    }
+
+    /**
+     * true when nothing is queued or held back, and the listener is not processing an event
+     */
+    public boolean isIdle() {
+        synchronized (this.idleLock) {
+            return !this.busy && this.queue.isEmpty() && this.overflowPolicy.getPendingCount() == 0;
+        }
+    }
+
+    public long getProcessedCount() {
+        return this.processed.get();
+    }
+
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    public long getDroppedCount() {
+        return this.overflowPolicy.getDroppedCount();
+    }
+
+    public long getAverageLatency(final TimeUnit unit) {
+        final long count = this.processed.get();
+        return count > 0 ? unit.convert(this.totalLatencyNanos.get() / count, TimeUnit.NANOSECONDS) : 0;
+    }
+
+    public long getMaxLatency(final TimeUnit unit) {
+        return unit.convert(this.maxLatencyNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * stop the worker, returning the events it never passed to the listener. an event being processed is given
+     * until the timeout to finish before the worker is interrupted.
+     */
+    public List<WickrEvent> stop(final long timeout, final TimeUnit unit) throws InterruptedException {
+        if (this.closed.getAndSet(true)) {
+            return Collections.emptyList();
+        }
+        final List<WickrEvent> undelivered = this.drain();
+        // an idle worker exits on its own once woken, it is only interrupted if the listener overruns the deadline
+        synchronized (this.idleLock) {
+            this.idleLock.notifyAll();
+        }
+        TimeUnit.NANOSECONDS.timedJoin(this.worker, Math.max(1, unit.toNanos(timeout)));
+        if (this.worker.isAlive()) {
+            logger.warn("Listener [" + this.listener + "] did not finish processing before the deadline, interrupting.");
+            this.worker.interrupt();
+            this.worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        undelivered.addAll(this.drain());
+        for (WickrEvent event = this.rejected.poll(); event != null; event = this.rejected.poll()) {
+            undelivered.add(event);
+        }
+        this.overflowPolicy.shutdown();
+        return undelivered;
+    }
+
+    private List<WickrEvent> drain() {
+        final List<WickrEvent> events = new ArrayList<>();
+        this.queue.drainTo(events);
+        while (this.overflowPolicy.getPendingCount() > 0) {
+            // move events held back by the policy through the queue
+            this.overflowPolicy.refill(this.queue);
+            if (0 == this.queue.drainTo(events)) {
+                break;
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        final List<WickrEvent> undelivered = this.stop(5, TimeUnit.SECONDS);
+        if (!undelivered.isEmpty()) {
+            logger.warn("Listener [" + this.listener + "] shutdown with [" + undelivered.size() + "] events not processed.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ListenerBulkhead{" +
+                "name=" + name +
+                ", listener=" + listener +
+                ", queued=" + queue.size() +
+                ", processed=" + processed +
+                ", failed=" + failed +
+                '}';
+    }
+}
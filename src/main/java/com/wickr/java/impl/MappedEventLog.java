@@ -0,0 +1,398 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * an append-only log of binary records stored in fixed size, memory-mapped segment files
+ * <p>
+ * records are addressed by a global offset, made of the segment base offset plus the position within the
+ * segment. a record never spans segments; when a record does not fit the current segment is sealed and a
+ * new segment is started at the next base offset.
+ *
+ * @date 10/17/26.
+ */
+public class MappedEventLog implements AutoCloseable {
+
+    public static class Record {
+        private final long offset;
+
+        private final long nextOffset;
+
+        private final byte[] data;
+
+        Record(final long offset, final long nextOffset, final byte[] data) {
+            this.offset = offset;
+            this.nextOffset = nextOffset;
+            this.data = data;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getNextOffset() {
+            return nextOffset;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    private static class Segment {
+        private final long baseOffset;
+
+        private final File file;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private Segment(final long baseOffset, final File file, final int size) throws IOException {
+            this.baseOffset = baseOffset;
+            this.file = file;
+            try (final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                this.channel = raf.getChannel();
+                this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+    }
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedEventLog.class);
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    // record length followed by checksum of the record data
+    private static final int HEADER_SIZE = 8;
+
+    // written in place of a record length when the remainder of a segment is unused
+    private static final int END_OF_SEGMENT = -1;
+
+    // a mapped segment cannot be deleted on some platforms until it is unmapped, which java 11 only offers here
+    private static final Object unsafe = findUnsafe();
+
+    private static final Method invokeCleaner = null == unsafe ? null : findInvokeCleaner(unsafe.getClass());
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final boolean syncOnWrite;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private long endOffset;
+
+    private boolean closed = false;
+
+    public MappedEventLog(final File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    public MappedEventLog(final File directory, final int segmentSize, final boolean syncOnWrite) throws IOException {
+        if (null == directory) {
+            throw new IllegalArgumentException("Log directory cannot be null.");
+        }
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size [" + segmentSize + "] is too small.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create log directory [" + directory + "].");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnWrite = syncOnWrite;
+        this.openExistingSegments();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public int getMaxRecordSize() {
+        return this.segmentSize - HEADER_SIZE;
+    }
+
+    public synchronized long getStartOffset() {
+        return this.segments.isEmpty() ? this.endOffset : this.segments.firstKey();
+    }
+
+    public synchronized long getEndOffset() {
+        return this.endOffset;
+    }
+
+    /**
+     * the base offset of each segment, oldest first
+     */
+    public synchronized List<Long> getSegmentOffsets() {
+        return new ArrayList<>(this.segments.keySet());
+    }
+
+    /**
+     * append a record to the end of the log, returning the offset the record was written at
+     */
+    public synchronized long append(final byte[] data) throws IOException {
+        this.ensureOpen();
+        if (null == data || data.length == 0) {
+            throw new IllegalArgumentException("Record cannot be empty.");
+        }
+        if (data.length > this.getMaxRecordSize()) {
+            throw new IllegalArgumentException("Record of [" + data.length + "] bytes exceeds maximum size [" + this.getMaxRecordSize() + "].");
+        }
+        Segment segment = this.segmentFor(this.endOffset);
+        int position = (int) (this.endOffset - segment.baseOffset);
+        if (position + HEADER_SIZE + data.length > this.segmentSize) {
+            // seal the current segment and roll over to the next one
+            if (position + 4 <= this.segmentSize) {
+                segment.buffer.putInt(position, END_OF_SEGMENT);
+            }
+            if (this.syncOnWrite) {
+                segment.buffer.force();
+            }
+            segment = this.createSegment(segment.baseOffset + this.segmentSize);
+            position = 0;
+        }
+        final long offset = segment.baseOffset + position;
+        segment.buffer.position(position + HEADER_SIZE);
+        segment.buffer.put(data);
+        segment.buffer.putInt(position + 4, checksum(data));
+        // the length is written last, marking the record as complete
+        segment.buffer.putInt(position, data.length);
+        if (this.syncOnWrite) {
+            segment.buffer.force();
+        }
+        this.endOffset = offset + HEADER_SIZE + data.length;
+        return offset;
+    }
+
+    /**
+     * read the record at or immediately following the given offset, or null if no such record has been written.
+     * records failing their checksum are skipped.
+     */
+    public synchronized Record read(final long offset) {
+        this.ensureOpen();
+        long current = Math.max(offset, this.getStartOffset());
+        while (current < this.endOffset) {
+            final Map.Entry<Long, Segment> entry = this.segments.floorEntry(current);
+            if (null == entry) {
+                return null;
+            }
+            final Segment segment = entry.getValue();
+            final int position = (int) (current - segment.baseOffset);
+            final int length = position + HEADER_SIZE <= this.segmentSize ? segment.buffer.getInt(position) : END_OF_SEGMENT;
+            if (length == END_OF_SEGMENT) {
+                current = segment.baseOffset + this.segmentSize;
+                continue;
+            } else if (length <= 0) {
+                return null;
+            } else if (position + HEADER_SIZE + length > this.segmentSize) {
+                logger.warn("Found corrupt record length at offset [" + current + "] in log segment [" + segment.file + "], skipping to the next segment.");
+                current = segment.baseOffset + this.segmentSize;
+                continue;
+            }
+            final byte[] data = new byte[length];
+            segment.buffer.duplicate().position(position + HEADER_SIZE).get(data);
+            if (checksum(data) != segment.buffer.getInt(position + 4)) {
+                logger.warn("Found corrupt record at offset [" + current + "] in log segment [" + segment.file + "], skipping.");
+                current += HEADER_SIZE + length;
+                continue;
+            }
+            return new Record(current, current + HEADER_SIZE + length, data);
+        }
+        return null;
+    }
+
+    /**
+     * delete all segments containing only records before the given offset
+     */
+    public synchronized int truncateBefore(final long offset) {
+        this.ensureOpen();
+        int deleted = 0;
+        while (this.segments.size() > 1) {
+            final Segment segment = this.segments.firstEntry().getValue();
+            if (segment.baseOffset + this.segmentSize > offset) {
+                break;
+            }
+            this.segments.pollFirstEntry();
+            this.closeSegment(segment);
+            if (!segment.file.delete()) {
+                logger.warn("Unable to delete log segment [" + segment.file + "], deleting on exit.");
+                segment.file.deleteOnExit();
+            }
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public synchronized void flush() {
+        for (final Segment segment : this.segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        for (final Segment segment : this.segments.values()) {
+            segment.buffer.force();
+            this.closeSegment(segment);
+        }
+        this.segments.clear();
+    }
+
+    private void ensureOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Log [" + this.directory + "] is closed.");
+        }
+    }
+
+    private Segment segmentFor(final long offset) throws IOException {
+        final Map.Entry<Long, Segment> entry = this.segments.floorEntry(offset);
+        if (entry != null && offset < entry.getKey() + this.segmentSize) {
+            return entry.getValue();
+        }
+        return this.createSegment(offset - Math.floorMod(offset, (long) this.segmentSize));
+    }
+
+    private Segment createSegment(final long baseOffset) throws IOException {
+        final File file = new File(this.directory, String.format("%020d", baseOffset) + SEGMENT_SUFFIX);
+        final Segment segment = new Segment(baseOffset, file, this.segmentSize);
+        this.segments.put(baseOffset, segment);
+        return segment;
+    }
+
+    // the segment buffer must not be used once closed
+    private void closeSegment(final Segment segment) {
+        try {
+            segment.channel.close();
+        } catch (final IOException e) {
+            logger.warn("Unable to close log segment [" + segment.file + "].", e);
+        }
+        if (invokeCleaner != null) {
+            try {
+                invokeCleaner.invoke(unsafe, segment.buffer);
+            } catch (final ReflectiveOperationException | RuntimeException e) {
+                logger.debug("Unable to unmap log segment [" + segment.file + "].", e);
+            }
+        }
+    }
+
+    private static int checksum(final byte[] data) {
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    private static Object findUnsafe() {
+        try {
+            final Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return field.get(null);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Unable to find unsafe, log segments will be unmapped by the garbage collector.", e);
+            return null;
+        }
+    }
+
+    private static Method findInvokeCleaner(final Class<?> clazz) {
+        try {
+            return clazz.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private void openExistingSegments() throws IOException {
+        final File[] files = this.directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (final File file : files) {
+                final String name = file.getName();
+                final long baseOffset;
+                try {
+                    baseOffset = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                } catch (final NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file [" + file + "] in log directory.");
+                    continue;
+                }
+                if (file.length() > this.segmentSize) {
+                    throw new IOException("Log segment [" + file + "] is larger than segment size [" + this.segmentSize + "].");
+                }
+                this.segments.put(baseOffset, new Segment(baseOffset, file, this.segmentSize));
+            }
+        }
+        if (this.segments.isEmpty()) {
+            this.endOffset = 0;
+            return;
+        }
+        // scan the last segment for the end of the log, stopping at the first incomplete or corrupt record
+        final Segment last = this.segments.lastEntry().getValue();
+        int position = 0;
+        while (position + HEADER_SIZE <= this.segmentSize) {
+            final int length = last.buffer.getInt(position);
+            if (length == END_OF_SEGMENT) {
+                position = this.segmentSize;
+                break;
+            } else if (length <= 0 || position + HEADER_SIZE + length > this.segmentSize) {
+                break;
+            }
+            final byte[] data = new byte[length];
+            last.buffer.duplicate().position(position + HEADER_SIZE).get(data);
+            if (checksum(data) != last.buffer.getInt(position + 4)) {
+                logger.warn("Found corrupt record at offset [" + (last.baseOffset + position) + "] in log segment [" + last.file + "], truncating.");
+                last.buffer.putInt(position, 0);
+                break;
+            }
+            position += HEADER_SIZE + length;
+        }
+        this.endOffset = last.baseOffset + position;
+    }
+}
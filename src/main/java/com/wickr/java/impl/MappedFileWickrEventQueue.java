@@ -0,0 +1,261 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrEventQueue;
+import com.wickr.java.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a durable event queue, appending events to a memory-mapped log on disk
+ * <p>
+ * events remain in the log until they are acknowledged, and any events not acknowledged before a crash or
+ * restart are delivered again when the queue is reopened. segments of the log are deleted once every event
+ * they hold has been acknowledged.
+ *
+ * @date 10/17/26.
+ */
+public class MappedFileWickrEventQueue implements WickrEventQueue {
+
+    private static class SequencedEvent extends WickrEvent {
+        private final MappedFileWickrEventQueue queue;
+
+        private final long nextOffset;
+
+        private boolean acknowledged = false;
+
+        SequencedEvent(final MappedFileWickrEventQueue queue, final WickrBot bot, final Message message, final long nextOffset) {
+            super(bot, message);
+            this.queue = queue;
+            this.nextOffset = nextOffset;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedFileWickrEventQueue.class);
+
+    private static final String POSITION_FILE = "consumer.position";
+
+    private static final long POSITION_FORCE_INTERVAL_NSEC = TimeUnit.SECONDS.toNanos(1);
+
+    private final MappedEventLog log;
+
+    private final FileChannel positionChannel;
+
+    private final MappedByteBuffer position;
+
+    private final Map<String, WickrBot> bots = new ConcurrentHashMap<>();
+
+    // events delivered to consumers, in log order, awaiting acknowledgement
+    private final Deque<SequencedEvent> unacknowledged = new ArrayDeque<>();
+
+    // the offset of the first event not yet acknowledged
+    private long acknowledgedOffset;
+
+    // the offset of the next event to deliver
+    private long readOffset;
+
+    // the acknowledged offset last forced to disk, and when
+    private long forcedOffset;
+
+    private long forcedAt = System.nanoTime();
+
+    private boolean closed = false;
+
+    public MappedFileWickrEventQueue(final File directory, final Collection<WickrBot> bots) throws IOException {
+        this(directory, bots, MappedEventLog.DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    public MappedFileWickrEventQueue(final File directory, final Collection<WickrBot> bots, final int segmentSize, final boolean syncOnWrite) throws IOException {
+        this.log = new MappedEventLog(directory, segmentSize, syncOnWrite);
+        if (bots != null) {
+            for (final WickrBot bot : bots) {
+                this.putBot(bot);
+            }
+        }
+        try (final RandomAccessFile raf = new RandomAccessFile(new File(directory, POSITION_FILE), "rw")) {
+            this.positionChannel = raf.getChannel();
+            this.position = this.positionChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        }
+        this.acknowledgedOffset = Math.max(this.position.getLong(0), this.log.getStartOffset());
+        this.readOffset = this.acknowledgedOffset;
+        this.forcedOffset = this.acknowledgedOffset;
+        logger.debug("Opened event log [" + directory + "] at offset [" + this.readOffset + "], end offset [" + this.log.getEndOffset() + "].");
+    }
+
+    public void putBot(final WickrBot bot) {
+        if (bot != null) {
+            this.bots.put(bot.getUser(), bot);
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * true if events have been written to the log but not yet delivered to a consumer
+     */
+    public synchronized boolean hasPending() {
+        return this.readOffset < this.log.getEndOffset();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !this.hasPending();
+    }
+
+    @Override
+    public boolean add(final WickrEvent event) {
+        if (null == event || null == event.getBot()) {
+            return false;
+        }
+        this.putBot(event.getBot());
+        final byte[] data;
+        try {
+            data = EventRecord.encode(event);
+        } catch (final IOException e) {
+            logger.warn("Unable to serialize event [" + event.getMessage() + "] for bot [" + event.getBot() + "].", e);
+            return false;
+        }
+        synchronized (this) {
+            if (this.closed) {
+                throw new IllegalStateException();
+            }
+            try {
+                this.log.append(data);
+            } catch (final IOException | IllegalArgumentException e) {
+                logger.warn("Unable to append event [" + event.getMessage() + "] to log.", e);
+                return false;
+            }
+            this.notifyAll();
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized WickrEvent remove(final int timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : Long.MAX_VALUE;
+        while (!this.closed) {
+            final MappedEventLog.Record record = this.log.read(this.readOffset);
+            if (record != null) {
+                this.readOffset = record.getNextOffset();
+                final SequencedEvent event = this.toEvent(record);
+                if (event != null) {
+                    this.unacknowledged.addLast(event);
+                    return event;
+                }
+                // unreadable events are skipped, but still count towards acknowledgement
+                this.unacknowledged.addLast(new SequencedEvent(this, null, null, record.getNextOffset()));
+                this.acknowledge(this.unacknowledged.peekLast());
+                continue;
+            }
+            if (timeout > 0) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } else {
+                this.wait();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void acknowledge(final WickrEvent event) {
+        if (!(event instanceof SequencedEvent) || ((SequencedEvent) event).queue != this) {
+            return;
+        }
+        ((SequencedEvent) event).acknowledged = true;
+        // advance past every event acknowledged in log order
+        long offset = this.acknowledgedOffset;
+        while (!this.unacknowledged.isEmpty() && this.unacknowledged.peekFirst().acknowledged) {
+            offset = this.unacknowledged.pollFirst().nextOffset;
+        }
+        if (offset != this.acknowledgedOffset && !this.closed) {
+            this.acknowledgedOffset = offset;
+            this.position.putLong(0, offset);
+            this.forcePosition(offset);
+            this.log.truncateBefore(offset);
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.notifyAll();
+        // anything delivered but not acknowledged is redelivered once the queue is reopened
+        this.position.force();
+        this.positionChannel.close();
+        this.log.close();
+    }
+
+    // write the position back before segments are deleted, and at least every second, so a machine crash redelivers little
+    private void forcePosition(final long offset) {
+        final long now = System.nanoTime();
+        final int segmentSize = this.log.getSegmentSize();
+        if (offset / segmentSize != this.forcedOffset / segmentSize || now - this.forcedAt >= POSITION_FORCE_INTERVAL_NSEC) {
+            this.position.force();
+            this.forcedOffset = offset;
+            this.forcedAt = now;
+        }
+    }
+
+    private SequencedEvent toEvent(final MappedEventLog.Record record) {
+        final EventRecord logged;
+        try {
+            logged = EventRecord.decode(record.getData());
+        } catch (final IOException e) {
+            logger.warn("Unable to read event at offset [" + record.getOffset() + "], skipping.", e);
+            return null;
+        }
+        final WickrBot bot = null == logged || null == logged.getBot() ? null : this.bots.get(logged.getBot());
+        if (null == bot) {
+            logger.warn("Unknown bot for event at offset [" + record.getOffset() + "], skipping.");
+            return null;
+        }
+        return new SequencedEvent(this, bot, logged.getMessage(), record.getNextOffset());
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrEvent;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * a policy for handling events added to a bounded event queue which is already full
+ *
+ * @date 10/17/26.
+ */
+public abstract class OverflowPolicy {
+
+    public static OverflowPolicy block(final long timeout, final TimeUnit unit) {
+        return new Block(timeout, unit);
+    }
+
+    public static OverflowPolicy dropNewest() {
+        return new DropNewest();
+    }
+
+    public static OverflowPolicy dropOldest() {
+        return new DropOldest();
+    }
+
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * add an event to the queue, applying this policy if the queue is full
+     */
+    public boolean offer(final BlockingQueue<WickrEvent> queue, final WickrEvent event) {
+        if (queue.offer(event)) {
+            return true;
+        }
+        this.overflowCount.incrementAndGet();
+        if (this.onOverflow(queue, event)) {
+            return true;
+        }
+        this.droppedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * add an event to the queue only if it fits without applying this policy, and behind any events held back by
+     * this policy so events stay in order
+     */
+    public boolean tryOffer(final BlockingQueue<WickrEvent> queue, final WickrEvent event) {
+        return this.getPendingCount() == 0 && queue.offer(event);
+    }
+
+    /**
+     * move any events held back by this policy into the queue, called after events are removed from the queue
+     */
+    public void refill(final BlockingQueue<WickrEvent> queue) {
+
+    }
+
+    public void shutdown() {
+
+    }
+
+    // the number of events held back by this policy, waiting to be moved into the queue
+    public int getPendingCount() {
+        return 0;
+    }
+
+    // the number of times an event was added while the queue was full
+    public long getOverflowCount() {
+        return this.overflowCount.get();
+    }
+
+    // the number of events discarded by this policy
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    protected void incrementDropped() {
+        this.droppedCount.incrementAndGet();
+    }
+
+    protected void incrementOverflow() {
+        this.overflowCount.incrementAndGet();
+    }
+
+    protected abstract boolean onOverflow(BlockingQueue<WickrEvent> queue, WickrEvent event);
+
+    private static class Block extends OverflowPolicy {
+        private final long timeoutNanos;
+
+        private Block(final long timeout, final TimeUnit unit) {
+            this.timeoutNanos = unit.toNanos(timeout);
+        }
+
+        @Override
+        protected boolean onOverflow(final BlockingQueue<WickrEvent> queue, final WickrEvent event) {
+            try {
+                return queue.offer(event, this.timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "block[" + TimeUnit.NANOSECONDS.toMillis(this.timeoutNanos) + "ms]";
+        }
+    }
+
+    private static class DropNewest extends OverflowPolicy {
+        @Override
+        protected boolean onOverflow(final BlockingQueue<WickrEvent> queue, final WickrEvent event) {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "drop-newest";
+        }
+    }
+
+    private static class DropOldest extends OverflowPolicy {
+        @Override
+        protected boolean onOverflow(final BlockingQueue<WickrEvent> queue, final WickrEvent event) {
+            // make room by discarding the head of the queue, competing producers may take the space first
+            for (int i = 0; i < 10; i++) {
+                if (queue.poll() != null) {
+                    this.incrementDropped();
+                }
+                if (queue.offer(event)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "drop-oldest";
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrComponent;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrExecutorFactory;
+import com.wickr.java.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * a dispatcher that processes events on a fixed set of worker threads, partitioned by conversation so events
+ * within the same room or direct conversation are always processed in order
+ *
+ * @date 10/17/26.
+ */
+public class PartitionedWickrEventDispatcher implements WickrComponent {
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedWickrEventDispatcher.class);
+
+    // how long an idle worker waits before checking whether the dispatcher was stopped
+    private static final long POLL_MSEC = 100;
+
+    private final class Worker implements Runnable {
+        private final BlockingQueue<WickrEvent> partition;
+
+        private Thread thread;
+
+        private Worker(final BlockingQueue<WickrEvent> partition) {
+            this.partition = partition;
+        }
+
+        @Override
+        public void run() {
+            try {
+                // idle workers are not interrupted on stop, so an event is always processed once taken
+                while (!isClosed()) {
+                    final WickrEvent event = this.partition.poll(POLL_MSEC, TimeUnit.MILLISECONDS);
+                    if (null == event) {
+                        continue;
+                    }
+                    try {
+                        processor.accept(event);
+                    } catch (final Exception e) {
+                        logger.warn("Unable to process event [" + event.getMessage() + "] for bot [" + event.getBot() + "].", e);
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            } catch (final InterruptedException e) {
+                logger.debug("Event dispatch thread interrupted, exiting.");
+            }
+        }
+    }
+
+    private final List<BlockingQueue<WickrEvent>> partitions;
+
+    private final List<Worker> workers;
+
+    private final Consumer<WickrEvent> processor;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    // events dispatched but not yet processed, including those being processed
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public PartitionedWickrEventDispatcher(final int numThreads, final Consumer<WickrEvent> processor) {
+        this(numThreads, 256, processor);
+    }
+
+    public PartitionedWickrEventDispatcher(final int numThreads, final int partitionSize, final Consumer<WickrEvent> processor) {
+        this(numThreads, partitionSize, processor, WickrExecutorFactory.platform());
+    }
+
+    public PartitionedWickrEventDispatcher(final int numThreads, final int partitionSize, final Consumer<WickrEvent> processor, final WickrExecutorFactory executors) {
+        if (numThreads <= 0) {
+            throw new IllegalArgumentException("Number of dispatch threads must be positive.");
+        }
+        if (null == processor) {
+            throw new IllegalArgumentException("Event processor cannot be null.");
+        }
+        if (null == executors) {
+            throw new IllegalArgumentException("Executor factory cannot be null.");
+        }
+        this.processor = processor;
+        final ThreadFactory threadFactory = executors.threadFactory("WickIO-EventDispatcher");
+        this.partitions = new ArrayList<>(numThreads);
+        this.workers = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            final BlockingQueue<WickrEvent> partition = new ArrayBlockingQueue<>(partitionSize);
+            final Worker worker = new Worker(partition);
+            worker.thread = threadFactory.newThread(worker);
+            this.partitions.add(partition);
+            this.workers.add(worker);
+        }
+        for (final Worker worker : this.workers) {
+            worker.thread.start();
+        }
+    }
+
+    public int getNumThreads() {
+        return this.workers.size();
+    }
+
+    public int getPendingCount() {
+        return this.pending.get();
+    }
+
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
+    /**
+     * hand off an event to the worker owning its conversation, blocking while that worker is backed up
+     */
+    public void dispatch(final WickrEvent event) throws InterruptedException {
+        if (null == event) {
+            return;
+        }
+        if (this.isClosed()) {
+            throw new IllegalStateException("Dispatcher is closed.");
+        }
+        this.pending.incrementAndGet();
+        try {
+            this.partitions.get(partitionFor(event, this.partitions.size())).put(event);
+        } catch (final InterruptedException e) {
+            this.pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * stop dispatching, returning the events never handed to the processor. workers notice within a short poll
+     * interval, those in the middle of processing an event are given until the timeout to finish before they are
+     * interrupted.
+     */
+    public List<WickrEvent> stop(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (this.closed.getAndSet(true)) {
+            return Collections.emptyList();
+        }
+        final List<WickrEvent> undispatched = new ArrayList<>();
+        for (final BlockingQueue<WickrEvent> partition : this.partitions) {
+            this.pending.addAndGet(-partition.drainTo(undispatched));
+        }
+        for (final Worker worker : this.workers) {
+            // wait at least one poll interval, so an idle worker exits on its own rather than being interrupted
+            final long remaining = Math.max(deadline - System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(2 * POLL_MSEC));
+            TimeUnit.NANOSECONDS.timedJoin(worker.thread, remaining);
+            if (worker.thread.isAlive()) {
+                logger.warn("Event dispatch thread did not finish processing before the deadline, interrupting.");
+                worker.thread.interrupt();
+                worker.thread.join();
+            }
+        }
+        // anything dispatched while stopping
+        for (final BlockingQueue<WickrEvent> partition : this.partitions) {
+            this.pending.addAndGet(-partition.drainTo(undispatched));
+        }
+        return undispatched;
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        final List<WickrEvent> undispatched = this.stop(5, TimeUnit.SECONDS);
+        if (!undispatched.isEmpty()) {
+            logger.warn("Dispatcher shutdown with [" + undispatched.size() + "] events not processed.");
+        }
+    }
+
+    static int partitionFor(final WickrEvent event, final int numPartitions) {
+        if (numPartitions <= 1) {
+            return 0;
+        }
+        return Math.floorMod(spread(conversationHash(event.getMessage())), numPartitions);
+    }
+
+    private static int conversationHash(final Message message) {
+        if (null == message) {
+            return 0;
+        }
+        final String groupId = message.getGroupId();
+        if (groupId != null && !groupId.isEmpty()) {
+            return groupId.hashCode();
+        }
+        // direct conversations are keyed by both parties, regardless of who sent the message
+        final String sender = message.getSender();
+        final String receiver = message.getReceiver();
+        return (sender != null ? sender.hashCode() : 0) + (receiver != null ? receiver.hashCode() : 0);
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
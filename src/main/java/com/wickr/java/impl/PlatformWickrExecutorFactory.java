@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrExecutorFactory;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * creates daemon platform threads, the default for the wickr-io library
+ *
+ * @date 10/17/26.
+ */
+public class PlatformWickrExecutorFactory implements WickrExecutorFactory {
+    public static final PlatformWickrExecutorFactory INSTANCE = new PlatformWickrExecutorFactory();
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    @Override
+    public ThreadFactory threadFactory(final String name) {
+        return r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            t.setName(name + "-" + threadCount.incrementAndGet());
+            return t;
+        };
+    }
+
+    @Override
+    public Thread newThread(final String name, final Runnable task) {
+        final Thread t = new Thread(task);
+        t.setDaemon(true);
+        t.setName(name);
+        return t;
+    }
+
+    @Override
+    public String toString() {
+        return "platform";
+    }
+}
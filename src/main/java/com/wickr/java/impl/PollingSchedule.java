@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * the delay between polls of the wickr-io container for new messages
+ * <p>
+ * a fixed schedule always waits the same interval. an adaptive schedule polls again immediately while messages
+ * keep arriving, and backs off exponentially with jitter while idle, optionally returning to the fastest rate
+ * when the container statistics report pending messages.
+ *
+ * @date 10/17/26.
+ */
+public class PollingSchedule {
+
+    public static PollingSchedule fixed(final int frequencyMsec) {
+        return new PollingSchedule(frequencyMsec, frequencyMsec, false, false);
+    }
+
+    public static PollingSchedule adaptive(final int minFrequencyMsec, final int maxFrequencyMsec) {
+        return adaptive(minFrequencyMsec, maxFrequencyMsec, false);
+    }
+
+    public static PollingSchedule adaptive(final int minFrequencyMsec, final int maxFrequencyMsec, final boolean checkPendingMessages) {
+        return new PollingSchedule(minFrequencyMsec, maxFrequencyMsec, true, checkPendingMessages);
+    }
+
+    private static final long MAX_FAILURE_DELAY_MSEC = 30000;
+
+    private final int minDelayMsec;
+
+    private final int maxDelayMsec;
+
+    private final boolean adaptive;
+
+    private final boolean checkPendingMessages;
+
+    private PollingSchedule(final int minDelayMsec, final int maxDelayMsec, final boolean adaptive, final boolean checkPendingMessages) {
+        if (minDelayMsec <= 0 || maxDelayMsec < minDelayMsec) {
+            throw new IllegalArgumentException("Invalid polling frequency [" + minDelayMsec + "-" + maxDelayMsec + "ms].");
+        }
+        this.minDelayMsec = minDelayMsec;
+        this.maxDelayMsec = maxDelayMsec;
+        this.adaptive = adaptive;
+        this.checkPendingMessages = checkPendingMessages;
+    }
+
+    public int getMinDelayMsec() {
+        return minDelayMsec;
+    }
+
+    public int getMaxDelayMsec() {
+        return maxDelayMsec;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public boolean checkPendingMessages() {
+        return adaptive && checkPendingMessages;
+    }
+
+    public long initialDelay() {
+        return this.minDelayMsec;
+    }
+
+    /**
+     * the delay before the next poll, given the previous delay and the number of messages the last poll read
+     */
+    public long nextDelay(final long previousDelayMsec, final int numRead, final int pendingMessages) {
+        if (!this.adaptive) {
+            return this.minDelayMsec;
+        }
+        if (numRead > 0) {
+            // keep draining while messages are arriving
+            return 0;
+        }
+        if (pendingMessages > 0) {
+            return this.minDelayMsec;
+        }
+        final long backoff = Math.min(this.maxDelayMsec, Math.max(this.minDelayMsec, previousDelayMsec * 2));
+        // spread polls of idle bots so they do not stay in step
+        final double jitter = 0.75 + ThreadLocalRandom.current().nextDouble() * 0.5;
+        return Math.max(this.minDelayMsec, Math.min(this.maxDelayMsec, (long) (backoff * jitter)));
+    }
+
+    /**
+     * the delay before retrying a poll which failed, backing off up to the larger of the maximum delay and 30 seconds
+     */
+    public long failureDelay(final long previousDelayMsec) {
+        final long maxFailureDelayMsec = Math.max(this.maxDelayMsec, MAX_FAILURE_DELAY_MSEC);
+        return Math.min(maxFailureDelayMsec, Math.max(this.minDelayMsec, previousDelayMsec * 2));
+    }
+
+    @Override
+    public String toString() {
+        return this.adaptive ? "adaptive[" + this.minDelayMsec + "-" + this.maxDelayMsec + "ms]" : "fixed[" + this.minDelayMsec + "ms]";
+    }
+}
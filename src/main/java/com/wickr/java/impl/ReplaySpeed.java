@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+/**
+ * how quickly recorded events are replayed, relative to the spacing between their original send times
+ *
+ * @date 10/17/26.
+ */
+public final class ReplaySpeed {
+    private static final ReplaySpeed MAXIMUM = new ReplaySpeed(0);
+
+    private static final ReplaySpeed ORIGINAL = new ReplaySpeed(1);
+
+    /**
+     * replay events back to back without waiting
+     */
+    public static ReplaySpeed maximum() {
+        return MAXIMUM;
+    }
+
+    /**
+     * replay events with the same spacing they were originally sent with
+     */
+    public static ReplaySpeed original() {
+        return ORIGINAL;
+    }
+
+    /**
+     * replay events with their original spacing divided by the given factor, so 2 replays twice as fast
+     */
+    public static ReplaySpeed scaled(final double factor) {
+        if (!(factor > 0) || Double.isInfinite(factor)) {
+            throw new IllegalArgumentException("Replay speed factor must be positive, found [" + factor + "].");
+        }
+        return new ReplaySpeed(factor);
+    }
+
+    // zero means no delay between events
+    private final double factor;
+
+    private ReplaySpeed(final double factor) {
+        this.factor = factor;
+    }
+
+    public boolean isMaximum() {
+        return this.factor <= 0;
+    }
+
+    /**
+     * the time to wait before replaying an event, given the time since the previous event was originally sent
+     */
+    public long delayMsec(final long originalGapMsec) {
+        if (this.isMaximum() || originalGapMsec <= 0) {
+            return 0;
+        }
+        return (long) (originalGapMsec / this.factor);
+    }
+
+    @Override
+    public String toString() {
+        return this.isMaximum() ? "maximum" : this.factor + "x";
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrComponent;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrListener;
+import com.wickr.java.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a local log retaining every event dispatched, so past events can be replayed into listeners
+ * <p>
+ * each record holds the time it was recorded followed by the event as json. records older than the retention
+ * period are deleted a segment at a time, so slightly more than the retention period may be kept. records are
+ * appended in the order they are recorded, so only the first record of each segment is read to find the segments
+ * to delete, or the segment to start a replay from.
+ *
+ * @date 10/17/26.
+ */
+public class RetainedEventLog implements WickrComponent {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetainedEventLog.class);
+
+    private static final long RETENTION_CHECK_INTERVAL_MSEC = TimeUnit.MINUTES.toMillis(1);
+
+    private final MappedEventLog log;
+
+    private final long retentionMsec;
+
+    private final Map<String, WickrBot> bots = new ConcurrentHashMap<>();
+
+    private volatile long lastRetentionCheck = System.currentTimeMillis();
+
+    // the time the first record of each segment was recorded, by segment offset
+    private final Map<Long, Long> segmentStarts = new TreeMap<>();
+
+    public RetainedEventLog(final File directory) throws IOException {
+        this(directory, -1, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param retention how long events are kept, or forever if not positive
+     */
+    public RetainedEventLog(final File directory, final long retention, final TimeUnit unit) throws IOException {
+        this(directory, retention, unit, MappedEventLog.DEFAULT_SEGMENT_SIZE);
+    }
+
+    RetainedEventLog(final File directory, final long retention, final TimeUnit unit, final int segmentSize) throws IOException {
+        this.log = new MappedEventLog(directory, segmentSize, false);
+        this.retentionMsec = retention > 0 ? unit.toMillis(retention) : -1;
+    }
+
+    public void putBot(final WickrBot bot) {
+        if (bot != null) {
+            this.bots.put(bot.getUser(), bot);
+        }
+    }
+
+    public long getStartOffset() {
+        return this.log.getStartOffset();
+    }
+
+    public long getEndOffset() {
+        return this.log.getEndOffset();
+    }
+
+    /**
+     * append the event to the log
+     *
+     * @return the offset of the event, or -1 if it could not be recorded
+     */
+    public long record(final WickrEvent event) {
+        if (null == event || null == event.getMessage()) {
+            return -1;
+        }
+        this.putBot(event.getBot());
+        final long offset;
+        try {
+            final byte[] json = EventRecord.encode(event);
+            offset = this.log.append(ByteBuffer.allocate(Long.BYTES + json.length).putLong(System.currentTimeMillis()).put(json).array());
+        } catch (final IOException | IllegalArgumentException | IllegalStateException e) {
+            logger.warn("Unable to record event [" + event.getMessage() + "] for bot [" + event.getBot() + "].", e);
+            return -1;
+        }
+        this.applyRetention();
+        return offset;
+    }
+
+    /**
+     * replay recorded events with offsets in the range [from, to) into the given listeners, on the calling thread
+     *
+     * @return the number of events replayed
+     */
+    public int replay(final long fromOffset, final long toOffset, final ReplaySpeed speed, final Collection<? extends WickrListener> listeners) throws InterruptedException {
+        return this.replay(fromOffset, toOffset, null, null, speed, listeners);
+    }
+
+    /**
+     * replay recorded events sent within the range [from, to) into the given listeners, on the calling thread.
+     * events are assumed to be recorded after they were sent, so the replay starts from the segment holding the
+     * first event recorded at or after the start of the range.
+     *
+     * @return the number of events replayed
+     */
+    public int replay(final Instant from, final Instant to, final ReplaySpeed speed, final Collection<? extends WickrListener> listeners) throws InterruptedException {
+        if (null == from || null == to) {
+            throw new IllegalArgumentException("Replay time range cannot be empty.");
+        }
+        return this.replay(this.findSegmentRecordedAt(from.toEpochMilli()), Long.MAX_VALUE, from, to, speed, listeners);
+    }
+
+    private int replay(final long fromOffset, final long toOffset, final Instant from, final Instant to, final ReplaySpeed speed, final Collection<? extends WickrListener> listeners) throws InterruptedException {
+        if (null == speed) {
+            throw new IllegalArgumentException("Replay speed cannot be null.");
+        }
+        if (null == listeners || listeners.isEmpty()) {
+            return 0;
+        }
+        final List<WickrListener> targets = List.copyOf(listeners);
+        // stop at the end of the log as it was when the replay started
+        final long endOffset = Math.min(toOffset, this.log.getEndOffset());
+        long offset = fromOffset;
+        long previousSent = -1;
+        int replayed = 0;
+        while (offset < endOffset) {
+            final MappedEventLog.Record record = this.log.read(offset);
+            if (null == record || record.getOffset() >= endOffset) {
+                break;
+            }
+            offset = record.getNextOffset();
+            final ByteBuffer data = ByteBuffer.wrap(record.getData());
+            final long recordedAt = data.getLong();
+            final EventRecord logged;
+            try {
+                logged = EventRecord.decode(record.getData(), Long.BYTES, data.remaining());
+            } catch (final IOException e) {
+                logger.warn("Skipping unreadable event at offset [" + record.getOffset() + "].", e);
+                continue;
+            }
+            if (null == logged || null == logged.getMessage()) {
+                continue;
+            }
+            final Message message = logged.getMessage();
+            final long sentAt = message.getTimeSent() != null ? message.getTimeSent().toEpochMilli() : recordedAt;
+            if (from != null && (sentAt < from.toEpochMilli() || sentAt >= to.toEpochMilli())) {
+                continue;
+            }
+            if (previousSent >= 0) {
+                final long delay = speed.delayMsec(sentAt - previousSent);
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+            }
+            previousSent = sentAt;
+            final WickrBot bot = logged.getBot() != null ? this.bots.get(logged.getBot()) : null;
+            for (final WickrListener listener : targets) {
+                try {
+                    listener.messageReceived(bot, message);
+                } catch (final Exception e) {
+                    logger.warn("Listener [" + listener + "] failed to process replayed message [" + message.getId() + "].", e);
+                }
+            }
+            replayed++;
+        }
+        return replayed;
+    }
+
+    private void applyRetention() {
+        if (this.retentionMsec <= 0) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (now - this.lastRetentionCheck < RETENTION_CHECK_INTERVAL_MSEC) {
+            return;
+        }
+        this.lastRetentionCheck = now;
+        // whole segments before the one which may hold records within the retention period can go
+        final long cutoff = now - this.retentionMsec;
+        final int deleted = this.log.truncateBefore(this.findSegmentRecordedAt(cutoff));
+        if (deleted > 0) {
+            logger.debug("Deleted [" + deleted + "] event log segments older than [" + Instant.ofEpochMilli(cutoff) + "].");
+        }
+    }
+
+    /**
+     * the offset of the last segment whose first record was recorded before the given time, as every later segment
+     * only holds records at or after it. returns the start of the log when there is no such segment.
+     */
+    private synchronized long findSegmentRecordedAt(final long time) {
+        final List<Long> offsets = this.log.getSegmentOffsets();
+        this.segmentStarts.keySet().retainAll(offsets);
+        long found = this.log.getStartOffset();
+        for (int i = 1; i < offsets.size(); i++) {
+            final long start = this.segmentRecordedAt(offsets.get(i));
+            if (start < 0 || start >= time) {
+                break;
+            }
+            found = offsets.get(i);
+        }
+        return found;
+    }
+
+    private long segmentRecordedAt(final long segmentOffset) {
+        final Long cached = this.segmentStarts.get(segmentOffset);
+        if (cached != null) {
+            return cached;
+        }
+        final MappedEventLog.Record record = this.log.read(segmentOffset);
+        if (null == record || record.getOffset() >= segmentOffset + this.log.getSegmentSize() || record.getData().length < Long.BYTES) {
+            return -1;
+        }
+        final long recordedAt = ByteBuffer.wrap(record.getData()).getLong();
+        this.segmentStarts.put(segmentOffset, recordedAt);
+        return recordedAt;
+    }
+
+    public void flush() {
+        this.log.flush();
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        this.log.close();
+    }
+}
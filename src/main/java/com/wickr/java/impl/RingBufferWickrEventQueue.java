@@ -0,0 +1,310 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrEventQueue;
+import com.wickr.java.model.Message;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * a lock-free event queue backed by a pre-allocated ring buffer, in the style of a disruptor
+ * <p>
+ * producers claim a sequence, write the bot and message into the reusable slot, then publish the sequence;
+ * consumers read published slots in sequence order. any number of threads may produce, and the queue may be
+ * consumed by a single thread or by several competing threads.
+ * <p>
+ * {@link #tryAdd} and {@link #add} claim and commit a slot in one call without allocating, which is the path the
+ * event publishing worker produces through; {@link #tryClaim} and {@link #commit} are exposed for producers that
+ * need the sequence. consumers still receive a new {@link WickrEvent} for each removal: dispatch workers, isolated
+ * listeners and the event log hold on to events after they leave the queue, so a slot cannot be lent out instead.
+ *
+ * @date 10/17/26.
+ */
+public class RingBufferWickrEventQueue implements WickrEventQueue {
+
+    public enum WaitStrategy {
+        // spin on the cursor, lowest latency at the cost of a dedicated core
+        BUSY_SPIN,
+        // spin, yielding the processor between attempts
+        YIELD,
+        // spin briefly, then park the thread between attempts
+        PARK
+    }
+
+    private static final class Slot {
+        private WickrBot bot;
+
+        private Message message;
+    }
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    // the sequence published into each slot, or -1 when never written
+    private final AtomicLongArray published;
+
+    // the next sequence to be claimed by a producer
+    private final AtomicLong producerCursor = new AtomicLong(0);
+
+    // the next sequence to be read by a consumer
+    private final AtomicLong consumerCursor = new AtomicLong(0);
+
+    // the sequence each slot may next be written with, only tracked with multiple consumers
+    private final AtomicLongArray released;
+
+    private final boolean multipleConsumers;
+
+    private final WaitStrategy waitStrategy;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    public RingBufferWickrEventQueue() {
+        this(1024);
+    }
+
+    public RingBufferWickrEventQueue(final int bufferSize) {
+        this(bufferSize, WaitStrategy.PARK, false);
+    }
+
+    public RingBufferWickrEventQueue(final int bufferSize, final WaitStrategy waitStrategy, final boolean multipleConsumers) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a positive power of two.");
+        }
+        this.slots = new Slot[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            this.slots[i] = new Slot();
+        }
+        this.mask = bufferSize - 1;
+        this.published = new AtomicLongArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            this.published.set(i, -1);
+        }
+        this.waitStrategy = waitStrategy != null ? waitStrategy : WaitStrategy.PARK;
+        this.multipleConsumers = multipleConsumers;
+        if (multipleConsumers) {
+            this.released = new AtomicLongArray(bufferSize);
+            for (int i = 0; i < bufferSize; i++) {
+                this.released.set(i, i);
+            }
+        } else {
+            this.released = null;
+        }
+    }
+
+    public int getBufferSize() {
+        return this.slots.length;
+    }
+
+    @Override
+    public int size() {
+        final long size = this.producerCursor.get() - this.consumerCursor.get();
+        return (int) Math.max(0, Math.min(size, this.slots.length));
+    }
+
+    public boolean isClosed() {
+        return this.closed.get();
+    }
+
+    @Override
+    public boolean add(final WickrEvent event) {
+        if (null == event) {
+            return false;
+        }
+        return this.add(event.getBot(), event.getMessage());
+    }
+
+    @Override
+    public boolean add(final WickrBot bot, final Message message) {
+        if (this.isClosed()) {
+            throw new IllegalStateException();
+        }
+        // wait for a free slot, the ring buffer never grows
+        long sequence;
+        int attempt = 0;
+        while ((sequence = this.tryClaim()) < 0) {
+            if (this.isClosed() || Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            this.idle(attempt++);
+        }
+        this.commit(sequence, bot, message);
+        return true;
+    }
+
+    /**
+     * attempt to add an event without waiting for space in the ring buffer
+     */
+    public boolean offer(final WickrBot bot, final Message message) {
+        if (this.isClosed()) {
+            return false;
+        }
+        final long sequence = this.tryClaim();
+        if (sequence < 0) {
+            return false;
+        }
+        this.commit(sequence, bot, message);
+        return true;
+    }
+
+    @Override
+    public boolean tryAdd(final WickrBot bot, final Message message) {
+        return this.offer(bot, message);
+    }
+
+    @Override
+    public boolean tryAdd(final WickrEvent event) {
+        if (null == event) {
+            return false;
+        }
+        return this.offer(event.getBot(), event.getMessage());
+    }
+
+    @Override
+    public WickrEvent remove(final int timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = timeout > 0 ? System.nanoTime() + unit.toNanos(timeout) : Long.MAX_VALUE;
+        int attempt = 0;
+        while (!this.isClosed()) {
+            final WickrEvent event = this.poll();
+            if (event != null) {
+                return event;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (timeout > 0 && System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            this.idle(attempt++);
+        }
+        return null;
+    }
+
+    /**
+     * remove the next event if one has been published, without waiting
+     */
+    public WickrEvent poll() {
+        while (true) {
+            final long sequence = this.consumerCursor.get();
+            final int index = (int) (sequence & this.mask);
+            if (this.published.get(index) != sequence) {
+                // nothing published at this sequence yet
+                return null;
+            }
+            // read the slot before releasing it, a producer may reuse it as soon as the cursor moves
+            final Slot slot = this.slots[index];
+            final WickrBot bot = slot.bot;
+            final Message message = slot.message;
+            if (this.multipleConsumers) {
+                if (!this.consumerCursor.compareAndSet(sequence, sequence + 1)) {
+                    // another consumer took this sequence, try the next one
+                    continue;
+                }
+                // a producer may already have claimed the slot, it waits in commit until the slot is released
+                slot.bot = null;
+                slot.message = null;
+                this.released.set(index, sequence + this.slots.length);
+            } else {
+                // drop the references so a consumed event is not kept reachable until the slot is reused
+                slot.bot = null;
+                slot.message = null;
+                this.consumerCursor.lazySet(sequence + 1);
+            }
+            return new WickrEvent(bot, message);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        this.closed.getAndSet(true);
+    }
+
+    /**
+     * claim the next slot without waiting, returning its sequence or -1 if the ring buffer is full
+     * <p>
+     * every claimed sequence must be passed to {@link #commit} promptly, consumers wait on it in order.
+     */
+    public long tryClaim() {
+        while (true) {
+            final long sequence = this.producerCursor.get();
+            if (sequence - this.consumerCursor.get() >= this.slots.length) {
+                // ring buffer is full
+                return -1;
+            }
+            if (this.producerCursor.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    /**
+     * write the event into a claimed slot and make it visible to consumers
+     */
+    public void commit(final long sequence, final WickrBot bot, final Message message) {
+        final int index = (int) (sequence & this.mask);
+        if (this.released != null) {
+            // the consumer of the previous sequence clears the slot just after moving the cursor past it
+            while (this.released.get(index) != sequence) {
+                Thread.onSpinWait();
+            }
+        }
+        final Slot slot = this.slots[index];
+        slot.bot = bot;
+        slot.message = message;
+        // the ordered write makes the slot contents visible to consumers reading the published sequence
+        this.published.lazySet(index, sequence);
+    }
+
+    private void idle(final int attempt) {
+        switch (this.waitStrategy) {
+            case BUSY_SPIN:
+                Thread.onSpinWait();
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            case PARK:
+            default:
+                if (attempt < SPIN_TRIES) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                break;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * an overflow policy which writes events to local files while the queue is full, moving them back into the
+ * queue in order as space becomes available
+ * <p>
+ * spilled events are appended through a buffer, which is flushed once events are read back. the spill is split
+ * into segment files named after the given file, and each segment is deleted once every event in it has been read
+ * back, so the files on disk stay bounded even when the queue never fully drains.
+ *
+ * @date 10/17/26.
+ */
+public class SpillToDiskOverflowPolicy extends OverflowPolicy {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillToDiskOverflowPolicy.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static final long DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    private static final class Segment {
+        private final File file;
+
+        private int written = 0;
+
+        private int read = 0;
+
+        private Segment(final File file) {
+            this.file = file;
+        }
+    }
+
+    private final File file;
+
+    private final long segmentBytes;
+
+    private final Map<String, WickrBot> bots = new ConcurrentHashMap<>();
+
+    private final AtomicLong spilledCount = new AtomicLong();
+
+    private final AtomicLong refilledCount = new AtomicLong();
+
+    // segments still holding events to read back, oldest first, the last is being written
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private int nextSegment = 0;
+
+    private DataOutputStream writer;
+
+    private long writtenBytes = 0;
+
+    private DataInputStream reader;
+
+    private boolean unflushed = false;
+
+    private int pending = 0;
+
+    public SpillToDiskOverflowPolicy(final File file) throws IOException {
+        this(file, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public SpillToDiskOverflowPolicy(final File file, final long segmentBytes) throws IOException {
+        if (null == file) {
+            throw new IllegalArgumentException("Spill file cannot be null.");
+        }
+        if (segmentBytes <= 0) {
+            throw new IllegalArgumentException("Segment size must be positive.");
+        }
+        this.file = file;
+        this.segmentBytes = segmentBytes;
+        this.startSegment();
+    }
+
+    @Override
+    public synchronized boolean offer(final BlockingQueue<WickrEvent> queue, final WickrEvent event) {
+        if (this.pending > 0) {
+            // move spilled events into any room first, new events follow them to preserve ordering
+            this.refill(queue);
+        }
+        if (this.pending == 0 && queue.offer(event)) {
+            return true;
+        }
+        // either the queue is full, or the refill filled it while events remain on disk
+        this.incrementOverflow();
+        if (this.onOverflow(queue, event)) {
+            return true;
+        }
+        this.incrementDropped();
+        return false;
+    }
+
+    @Override
+    public synchronized boolean tryOffer(final BlockingQueue<WickrEvent> queue, final WickrEvent event) {
+        if (this.pending > 0) {
+            this.refill(queue);
+        }
+        return this.pending == 0 && queue.offer(event);
+    }
+
+    @Override
+    protected boolean onOverflow(final BlockingQueue<WickrEvent> queue, final WickrEvent event) {
+        if (null == event.getBot()) {
+            return false;
+        }
+        final byte[] data;
+        try {
+            data = EventRecord.encode(event);
+        } catch (final IOException e) {
+            logger.warn("Unable to serialize event [" + event.getMessage() + "] for bot [" + event.getBot() + "].", e);
+            return false;
+        }
+        try {
+            if (this.writtenBytes >= this.segmentBytes) {
+                this.startSegment();
+            }
+            this.writer.writeInt(data.length);
+            this.writer.write(data);
+        } catch (final IOException e) {
+            logger.warn("Unable to spill event [" + event.getMessage() + "] to [" + this.file + "], dropping [" + this.pending + "] spilled events.", e);
+            this.reset();
+            return false;
+        }
+        this.bots.put(event.getBot().getUser(), event.getBot());
+        this.writtenBytes += Integer.BYTES + data.length;
+        this.segments.peekLast().written++;
+        this.unflushed = true;
+        this.pending++;
+        this.spilledCount.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public synchronized void refill(final BlockingQueue<WickrEvent> queue) {
+        if (this.pending == 0 || queue.remainingCapacity() == 0) {
+            return;
+        }
+        try {
+            if (this.unflushed) {
+                this.writer.flush();
+                this.unflushed = false;
+            }
+            while (this.pending > 0 && queue.remainingCapacity() > 0) {
+                final Segment segment = this.segments.peekFirst();
+                if (segment.read == segment.written) {
+                    // every event in the segment has been read back, move on to the next one
+                    this.reader.close();
+                    this.segments.pollFirst();
+                    delete(segment.file);
+                    this.reader = openReader(this.segments.peekFirst().file);
+                    continue;
+                }
+                final byte[] data = new byte[this.reader.readInt()];
+                this.reader.readFully(data);
+                segment.read++;
+                this.pending--;
+                EventRecord spilled = null;
+                try {
+                    spilled = EventRecord.decode(data);
+                } catch (final IOException e) {
+                    logger.warn("Unable to parse spilled event.", e);
+                }
+                final WickrBot bot = null == spilled || null == spilled.getBot() ? null : this.bots.get(spilled.getBot());
+                if (null == bot || !queue.offer(new WickrEvent(bot, spilled.getMessage()))) {
+                    logger.warn("Unable to move spilled event back into queue, dropping.");
+                    this.incrementDropped();
+                } else {
+                    this.refilledCount.incrementAndGet();
+                }
+            }
+            if (this.pending == 0) {
+                // everything has been read back, reclaim the files
+                this.close();
+                this.startSegment();
+            }
+        } catch (final IOException e) {
+            logger.warn("Unable to read spilled events from [" + this.file + "], dropping [" + this.pending + "] events.", e);
+            this.reset();
+        }
+    }
+
+    // the number of events written to disk
+    public long getSpilledCount() {
+        return this.spilledCount.get();
+    }
+
+    // the number of events moved from disk back into the queue
+    public long getRefilledCount() {
+        return this.refilledCount.get();
+    }
+
+    // the number of events currently held on disk
+    @Override
+    public synchronized int getPendingCount() {
+        return this.pending;
+    }
+
+    // the number of segment files currently on disk
+    public synchronized int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        this.close();
+    }
+
+    @Override
+    public String toString() {
+        return "spill-to-disk[" + this.file + "]";
+    }
+
+    /**
+     * start writing a new segment, which is also read from if it is the only one
+     */
+    private void startSegment() throws IOException {
+        if (this.writer != null) {
+            this.writer.close();
+        }
+        final Segment segment = new Segment(new File(this.file.getPath() + "." + this.nextSegment++));
+        this.writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(segment.file), BUFFER_SIZE));
+        this.writtenBytes = 0;
+        this.unflushed = false;
+        this.segments.addLast(segment);
+        if (1 == this.segments.size()) {
+            this.reader = openReader(segment.file);
+        }
+    }
+
+    // close and delete every segment
+    private void close() {
+        if (this.reader != null) {
+            try {
+                this.reader.close();
+            } catch (final IOException e) {
+                logger.debug("Unable to close spill file reader [" + this.file + "].", e);
+            }
+            this.reader = null;
+        }
+        if (this.writer != null) {
+            try {
+                this.writer.close();
+            } catch (final IOException e) {
+                logger.warn("Unable to close spill file [" + this.file + "].", e);
+            }
+            this.writer = null;
+        }
+        for (final Segment segment : this.segments) {
+            delete(segment.file);
+        }
+        this.segments.clear();
+    }
+
+    // drop everything held on disk after a failed read or write
+    private void reset() {
+        for (; this.pending > 0; this.pending--) {
+            this.incrementDropped();
+        }
+        this.close();
+        try {
+            this.startSegment();
+        } catch (final IOException e) {
+            logger.warn("Unable to reopen spill file [" + this.file + "].", e);
+        }
+    }
+
+    private static DataInputStream openReader(final File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete()) {
+            logger.debug("Unable to delete spill file [" + file + "].");
+        }
+    }
+}
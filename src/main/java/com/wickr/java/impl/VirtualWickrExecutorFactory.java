@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrExecutorFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * creates virtual threads for the threads the library dedicates to polling, dispatch and isolated listeners, and
+ * a new virtual thread for each blocking task, so blocking http calls and listeners do not each hold a platform thread
+ * <p>
+ * the library is built for java 11, so the java 21 thread builder api is looked up at runtime.
+ *
+ * @date 10/17/26.
+ */
+public class VirtualWickrExecutorFactory implements WickrExecutorFactory {
+
+    private static final Method ofVirtual = findMethod(Thread.class, "ofVirtual");
+
+    private static final Method builderName = findMethod(builderClass(), "name", String.class, long.class);
+
+    private static final Method builderFactory = findMethod(builderClass(), "factory");
+
+    private static final Method newThreadPerTaskExecutor = findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    public static boolean isSupported() {
+        // virtual threads are a preview api before java 21
+        return Runtime.version().feature() >= 21 && ofVirtual != null && builderName != null && builderFactory != null && newThreadPerTaskExecutor != null;
+    }
+
+    public VirtualWickrExecutorFactory() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require java 21 or later, found [" + System.getProperty("java.version") + "].");
+        }
+    }
+
+    @Override
+    public ThreadFactory threadFactory(final String name) {
+        try {
+            final Object builder = builderName.invoke(ofVirtual.invoke(null), name + "-", 1L);
+            return (ThreadFactory) builderFactory.invoke(builder);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create virtual thread factory.", e);
+        }
+    }
+
+    @Override
+    public Thread newThread(final String name, final Runnable task) {
+        final Thread t = this.threadFactory(name).newThread(task);
+        t.setName(name);
+        return t;
+    }
+
+    /**
+     * starts a new virtual thread for each task rather than pooling them
+     */
+    @Override
+    public ExecutorService newTaskExecutor(final String name) {
+        try {
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, this.threadFactory(name));
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create virtual thread executor.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "virtual";
+    }
+
+    private static Class<?> builderClass() {
+        try {
+            return Class.forName("java.lang.Thread$Builder");
+        } catch (final ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(final Class<?> clazz, final String name, final Class<?>... types) {
+        if (null == clazz) {
+            return null;
+        }
+        try {
+            return clazz.getMethod(name, types);
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
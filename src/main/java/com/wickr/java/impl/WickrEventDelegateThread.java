@@ -30,6 +30,8 @@ import com.wickr.java.WickrComponent;
 import com.wickr.java.WickrListener;
 import com.wickr.java.model.Message;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * a thread which delegates to existing publishing worker
  *
@@ -53,6 +55,10 @@ public class WickrEventDelegateThread extends Thread implements WickrListener, W
         this.interrupt();
     }
 
+    public boolean stopIntake(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.worker.stopIntake(timeout, unit);
+    }
+
     @Override
     public void messageReceived(WickrBot bot, Message message) {
         this.worker.messageReceived(bot, message);
@@ -0,0 +1,245 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrComponent;
+import com.wickr.java.WickrEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * publishes events to reactive subscribers, each with its own bounded buffer
+ * <p>
+ * a subscriber whose buffer is full blocks the publishing thread until it requests more events, so demand flows
+ * back to the event queue rather than events accumulating in memory. an event counts as delivered once every
+ * subscriber's onNext has returned for it, or the subscriber cancelled; events still buffered at shutdown are never
+ * delivered, so a durable queue keeps them unacknowledged for the next start.
+ *
+ * @date 10/17/26.
+ */
+public class WickrEventPublisher implements Flow.Publisher<WickrEvent>, WickrComponent {
+    private static final Logger logger = LoggerFactory.getLogger(WickrEventPublisher.class);
+
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private final Set<EventSubscription> subscriptions = new CopyOnWriteArraySet<>();
+
+    private final int bufferSize;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    public WickrEventPublisher() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public WickrEventPublisher(final int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Subscriber buffer size must be positive.");
+        }
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super WickrEvent> subscriber) {
+        if (null == subscriber) {
+            throw new NullPointerException("Subscriber cannot be null.");
+        }
+        final EventSubscription subscription = new EventSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        if (this.closed.get()) {
+            subscription.complete();
+            return;
+        }
+        this.subscriptions.add(subscription);
+        if (this.closed.get()) {
+            // closed while subscribing, make sure the subscriber is still told
+            subscription.complete();
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    public int getNumberOfSubscribers() {
+        return this.subscriptions.size();
+    }
+
+    /**
+     * offers the event to every subscriber, waiting while any subscriber's buffer is full
+     *
+     * @return a future completed once every subscriber has been handed the event, or null if there were none
+     */
+    public CompletableFuture<Void> publish(final WickrEvent event) throws InterruptedException {
+        if (null == event || this.subscriptions.isEmpty()) {
+            return null;
+        }
+        CompletableFuture<Void> delivered = null;
+        for (final EventSubscription subscription : this.subscriptions) {
+            final CompletableFuture<Void> next = subscription.offer(event);
+            delivered = null == delivered ? next : CompletableFuture.allOf(delivered, next);
+        }
+        return delivered;
+    }
+
+    @Override
+    public void shutdown() throws Exception {
+        if (!this.closed.getAndSet(true)) {
+            for (final EventSubscription subscription : this.subscriptions) {
+                subscription.complete();
+            }
+        }
+    }
+
+    private static final class Delivery {
+        private final WickrEvent event;
+
+        private final CompletableFuture<Void> delivered = new CompletableFuture<>();
+
+        private Delivery(final WickrEvent event) {
+            this.event = event;
+        }
+    }
+
+    private class EventSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super WickrEvent> subscriber;
+
+        private final BlockingQueue<Delivery> buffer;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        // serializes signals to the subscriber, whichever thread requested or published
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile boolean cancelled = false;
+
+        private volatile boolean completed = false;
+
+        private volatile Throwable error = null;
+
+        private EventSubscription(final Flow.Subscriber<? super WickrEvent> subscriber) {
+            this.subscriber = subscriber;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        @Override
+        public void request(final long n) {
+            if (n <= 0) {
+                this.error = new IllegalArgumentException("Requested events must be positive, found [" + n + "].");
+                this.complete();
+                return;
+            }
+            this.demand.getAndUpdate(current -> {
+                final long next = current + n;
+                return next < 0 ? Long.MAX_VALUE : next;
+            });
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+            subscriptions.remove(this);
+            // the subscriber no longer wants these, nothing is left to wait for
+            for (Delivery delivery = this.buffer.poll(); delivery != null; delivery = this.buffer.poll()) {
+                delivery.delivered.complete(null);
+            }
+        }
+
+        private CompletableFuture<Void> offer(final WickrEvent event) throws InterruptedException {
+            final Delivery delivery = new Delivery(event);
+            while (!this.cancelled && !this.completed) {
+                if (this.buffer.offer(delivery, 100, TimeUnit.MILLISECONDS)) {
+                    if (this.cancelled) {
+                        // cancelled while offering, the buffer may already have been cleared
+                        delivery.delivered.complete(null);
+                    }
+                    this.drain();
+                    return delivery.delivered;
+                }
+            }
+            // cancelled, nothing to deliver to; completed at shutdown, left undelivered
+            if (this.cancelled) {
+                delivery.delivered.complete(null);
+            }
+            return delivery.delivered;
+        }
+
+        private void complete() {
+            this.completed = true;
+            this.drain();
+        }
+
+        private void drain() {
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            while (true) {
+                if (this.error != null && !this.cancelled) {
+                    this.cancel();
+                    this.subscriber.onError(this.error);
+                }
+                while (!this.cancelled && this.demand.get() > 0) {
+                    final Delivery delivery = this.buffer.poll();
+                    if (null == delivery) {
+                        break;
+                    }
+                    if (this.demand.get() != Long.MAX_VALUE) {
+                        this.demand.decrementAndGet();
+                    }
+                    try {
+                        this.subscriber.onNext(delivery.event);
+                    } catch (final Throwable e) {
+                        logger.warn("Subscriber [" + this.subscriber + "] failed to process event, cancelling subscription.", e);
+                        this.cancel();
+                    } finally {
+                        delivery.delivered.complete(null);
+                    }
+                }
+                if (this.completed && this.buffer.isEmpty() && !this.cancelled) {
+                    this.cancel();
+                    this.subscriber.onComplete();
+                }
+                missed = this.wip.addAndGet(-missed);
+                if (0 == missed) {
+                    break;
+                }
+            }
+        }
+    }
+}
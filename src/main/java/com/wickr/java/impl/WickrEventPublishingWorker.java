@@ -28,6 +28,7 @@ package com.wickr.java.impl;
 import com.wickr.java.WickrBot;
 import com.wickr.java.WickrComponent;
 import com.wickr.java.WickrEventQueue;
+import com.wickr.java.WickrExecutorFactory;
 import com.wickr.java.WickrListener;
 import com.wickr.java.model.Message;
 import com.wickr.java.util.ExceptionUtils;
@@ -39,8 +40,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -52,52 +53,100 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class WickrEventPublishingWorker implements Runnable, WickrComponent, WickrListener {
 
     public static WickrEventDelegateThread createAsThread(final Collection<WickrBot> botsToListenFor, final WickrEventQueue queue, final int queryFrequencyMsec) {
-        final WickrEventDelegateThread thread = new WickrEventDelegateThread(new WickrEventPublishingWorker(botsToListenFor, queue, queryFrequencyMsec));
+        return createAsThread(botsToListenFor, queue, PollingSchedule.fixed(queryFrequencyMsec));
+    }
+
+    public static WickrEventDelegateThread createAsThread(final Collection<WickrBot> botsToListenFor, final WickrEventQueue queue, final PollingSchedule schedule) {
+        return createAsThread(botsToListenFor, queue, schedule, DEFAULT_POLLING_THREADS, -1);
+    }
+
+    public static WickrEventDelegateThread createAsThread(final Collection<WickrBot> botsToListenFor, final WickrEventQueue queue, final PollingSchedule schedule, final int maxConcurrentPolls, final int pageSize) {
+        return createAsThread(botsToListenFor, queue, schedule, maxConcurrentPolls, pageSize, WickrExecutorFactory.platform());
+    }
+
+    public static WickrEventDelegateThread createAsThread(final Collection<WickrBot> botsToListenFor, final WickrEventQueue queue, final PollingSchedule schedule, final int maxConcurrentPolls, final int pageSize, final WickrExecutorFactory executors) {
+        final WickrEventDelegateThread thread = new WickrEventDelegateThread(new WickrEventPublishingWorker(botsToListenFor, queue, schedule, maxConcurrentPolls, pageSize, executors));
         thread.setName("WickIO-EventPublisher-Main");
         thread.setDaemon(true);
         return thread;
     }
 
     public static WickrEventPublishingWorker createAsApi(final Collection<WickrBot> botsToListenFor, final WickrEventQueue queue) {
-        return new WickrEventPublishingWorker(botsToListenFor, queue, -1);
+        return createAsApi(botsToListenFor, queue, WickrExecutorFactory.platform());
+    }
+
+    public static WickrEventPublishingWorker createAsApi(final Collection<WickrBot> botsToListenFor, final WickrEventQueue queue, final WickrExecutorFactory executors) {
+        return new WickrEventPublishingWorker(botsToListenFor, queue, null, 1, -1, executors);
     }
 
     private static final Logger logger = LoggerFactory.getLogger(WickrEventPublishingWorker.class);
 
-    private static final AtomicInteger threadCount = new AtomicInteger();
+    public static final int DEFAULT_POLLING_THREADS = 4;
 
     private final WickrEventQueue queue;
 
-    private final ExecutorService executor;
+    private final PollingSchedule pollingSchedule;
+
+    private final ScheduledExecutorService pollers;
 
-    private final int messageQueryFrequencyMsec;
+    // the maximum number of messages requested per poll, or unbounded if not positive
+    private final int pageSize;
 
     private final List<WickrBot> bots;
 
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
-    WickrEventPublishingWorker(final Collection<WickrBot> botsToListenFor, final WickrEventQueue queue, final int queryFrequencyMsec) {
+    private final AtomicBoolean intakeStopped = new AtomicBoolean(false);
+
+    // threads currently adding a message to the queue
+    private final AtomicInteger activeProducers = new AtomicInteger();
+
+    WickrEventPublishingWorker(final Collection<WickrBot> botsToListenFor, final WickrEventQueue queue, final PollingSchedule schedule, final int maxConcurrentPolls, final int pageSize, final WickrExecutorFactory executors) {
         this.queue = queue;
         this.bots = new ArrayList<>(botsToListenFor);
-        this.messageQueryFrequencyMsec = queryFrequencyMsec;
-        this.executor = Executors.newSingleThreadExecutor(r -> {
-            Thread t = new Thread(r);
-            t.setDaemon(true);
-            t.setName("WickIO-EventPublisher-Worker-" + threadCount.incrementAndGet());
-            return t;
-        });
+        this.pollingSchedule = schedule;
+        this.pageSize = pageSize;
+        // each bot is polled on its own schedule, with at most one in-flight poll per thread
+        this.pollers = executors.newScheduledExecutor("WickIO-EventPublisher-Poller", Math.max(1, Math.min(maxConcurrentPolls, this.bots.size())));
+        if (this.pollers instanceof ScheduledThreadPoolExecutor) {
+            // polls waiting for their next turn are dropped when intake stops, rather than run late
+            ((ScheduledThreadPoolExecutor) this.pollers).setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
     }
 
     @Override
     public void shutdown() throws Exception {
         this.closed.getAndSet(true);
-        this.executor.shutdownNow();
+        this.pollers.shutdownNow();
     }
 
     public boolean isClosed() {
         return this.closed.get();
     }
 
+    /**
+     * stop polling for new messages, waiting for polls already under way to finish and for every message received
+     * so far to be added to the queue
+     *
+     * @return true if intake stopped before the timeout
+     */
+    public boolean stopIntake(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        this.intakeStopped.set(true);
+        this.pollers.shutdown();
+        if (!this.pollers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        // wait for callbacks already adding messages to finish
+        while (this.activeProducers.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
     @Override
     public void messageReceived(final WickrBot bot, final Message message) {
         if (null == bot || null == message) {
@@ -105,46 +154,39 @@ public class WickrEventPublishingWorker implements Runnable, WickrComponent, Wic
         } else if (this.isClosed()) {
             return;
         }
-        final Runnable worker = () -> {
-            try {
-                if (!attemptToAddMessageEvent(bot, message)) {
-                    logger.warn("Unable to add message [" + message.getId() + "] to queue.");
-                }
-            } catch (final Exception e) {
-                logger.warn("Error adding message [" + message.getId() + "] to queue.", e);
+        // add the message directly from the calling thread, only waiting on the queue when it is full
+        this.activeProducers.incrementAndGet();
+        try {
+            if (!this.addMessageEvent(bot, message)) {
+                logger.warn("Unable to add message [" + message.getId() + "] to queue.");
             }
-        };
-        this.executor.submit(worker);
+        } catch (final RuntimeException e) {
+            logger.warn("Error adding message [" + message.getId() + "] to queue.", e);
+        } finally {
+            this.activeProducers.decrementAndGet();
+        }
     }
 
-    private boolean attemptToAddMessageEvent(final WickrBot bot, final Message message) {
-        if (this.isClosed()) {
-            return false;
+    private boolean addMessageEvent(final WickrBot bot, final Message message) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Adding message [" + message.getId() + "] to event queue ...");
         }
-
-        logger.info("Adding message [" + message.getId() + "] to event queue ...");
-        if (queue.add(bot, message)) {
+        if (this.queue.tryAdd(bot, message)) {
             return true;
         }
-
-        boolean wasAdded = false;
-        for (int i = 0; !wasAdded && i < 10; i++) {
-            wasAdded = queue.add(bot, message);
-            if (wasAdded) {
-                return true;
-            }
-        }
-        return false;
+        return !this.isClosed() && this.queue.add(bot, message);
     }
 
     @Override
     public void run() {
-        if (this.messageQueryFrequencyMsec <= 0) {
+        if (null == this.pollingSchedule) {
             // not querying for messages, bail early
             return;
         }
         try {
-            checkMessagesUntilClosed();
+            this.startPolling();
+            // keep running for as long as the bots are being polled
+            this.pollers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
         } catch (final InterruptedException e) {
             logger.debug("Message query thread interrupted, existing.", e);
         } catch (final Exception e) {
@@ -152,40 +194,80 @@ public class WickrEventPublishingWorker implements Runnable, WickrComponent, Wic
         }
     }
 
-    private void checkMessagesUntilClosed() throws InterruptedException, HttpHostConnectException {
-        while (!this.isClosed()) {
-            Thread.sleep(this.messageQueryFrequencyMsec);
-            final int numRead = checkForMessagesInThread();
-            if (numRead > 0) {
-                logger.trace("Processed [" + numRead + "] events in message query thread.");
-            }
+    private void startPolling() {
+        // stagger the first poll of each bot across the polling interval, so bots on one container do not poll in step
+        final long interval = this.pollingSchedule.initialDelay();
+        final int numBots = this.bots.size();
+        for (int i = 0; i < numBots; i++) {
+            final long offset = interval * i / numBots;
+            final long jitter = ThreadLocalRandom.current().nextLong(Math.max(1, interval / numBots));
+            this.pollers.schedule(new BotPoller(this.bots.get(i)), offset + jitter, TimeUnit.MILLISECONDS);
         }
     }
 
-    private int checkForMessagesInThread() throws HttpHostConnectException {
-        if (isClosed()) {
-            return 0;
+    private class BotPoller implements Runnable {
+        private final WickrBot bot;
+
+        private long delayMsec;
+
+        private BotPoller(final WickrBot bot) {
+            this.bot = bot;
+            this.delayMsec = pollingSchedule.initialDelay();
         }
-        int numRead = 0;
-        for (final WickrBot bot : this.bots) {
-            if (isClosed()) {
-                return numRead;
+
+        @Override
+        public void run() {
+            if (isClosed() || intakeStopped.get()) {
+                return;
             }
             try {
-                for (final Message msg : bot.getUnreadMessages()) {
-                    if (isClosed()) {
-                        return numRead;
-                    }
-                    this.messageReceived(bot, msg);
-                    numRead++;
+                final int numRead = checkForMessages(this.bot);
+                if (numRead > 0) {
+                    logger.trace("Processed [" + numRead + "] events for bot [" + this.bot + "].");
                 }
+                final int numPending = numRead <= 0 && pollingSchedule.checkPendingMessages() ? this.bot.getStatistics().getPendingMessages() : 0;
+                this.delayMsec = pollingSchedule.nextDelay(this.delayMsec, numRead, numPending);
             } catch (final IOException e) {
                 if (ExceptionUtils.isException(e, HttpHostConnectException.class)) {
-                    logger.error("Unable to query messages for bot [" + bot + "] - error connecting to host.", e);
-                    throw new HttpHostConnectException("Unable to connect to host when querying messages for [" + bot + "].");
+                    logger.error("Unable to query messages for bot [" + this.bot + "] - error connecting to host.", e);
                 } else {
-                    logger.warn("Unable to query messages for bot [" + bot + "].", e);
+                    logger.warn("Unable to query messages for bot [" + this.bot + "].", e);
                 }
+                this.delayMsec = pollingSchedule.failureDelay(this.delayMsec);
+            } catch (final RuntimeException e) {
+                logger.warn("Unexpected error querying messages for bot [" + this.bot + "].", e);
+                this.delayMsec = pollingSchedule.failureDelay(this.delayMsec);
+            } finally {
+                this.scheduleNext();
+            }
+        }
+
+        private void scheduleNext() {
+            if (isClosed() || intakeStopped.get()) {
+                return;
+            }
+            try {
+                pollers.schedule(this, this.delayMsec, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                logger.debug("Polling stopped for bot [" + this.bot + "].");
+            }
+        }
+    }
+
+    private int checkForMessages(final WickrBot bot) throws IOException {
+        // messages are published as they are parsed from the response, rather than once the whole response is read
+        final Consumer<Message> publisher = (msg) -> this.messageReceived(bot, msg);
+        if (this.pageSize <= 0) {
+            return bot.getUnreadMessages(-1, -1, publisher);
+        }
+        // drain the backlog a page at a time, publishing each page before requesting the next
+        int numRead = 0;
+        while (!isClosed()) {
+            // the raw element count, a full page with malformed messages still means more may be waiting
+            final int pageRead = bot.getUnreadMessages(-1, this.pageSize, publisher);
+            numRead += pageRead;
+            if (pageRead < this.pageSize) {
+                break;
             }
         }
         return numRead;
@@ -0,0 +1,255 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrListener;
+import com.wickr.java.WickrSubscription;
+import com.wickr.java.model.Message;
+import com.wickr.java.model.MessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * routes events to the listeners whose subscription matches them
+ * <p>
+ * each listener is indexed by the most selective criterion of its subscription (room, then sender, then bot, then
+ * message type) so an event only visits the listeners that could match it. the index is rebuilt when listeners
+ * change and read without locking or copying when routing events. matching listeners are called in the order they
+ * were registered, and an exception from one listener does not stop the others being called. the events each
+ * listener processed and failed on are counted.
+ *
+ * @date 10/17/26.
+ */
+public class WickrEventRouter {
+    private static final Logger logger = LoggerFactory.getLogger(WickrEventRouter.class);
+
+    private static final class Route {
+        private final long sequence;
+
+        private final WickrSubscription subscription;
+
+        private final WickrListener listener;
+
+        private final AtomicLong processed = new AtomicLong();
+
+        private final AtomicLong failed = new AtomicLong();
+
+        private Route(final long sequence, final WickrSubscription subscription, final WickrListener listener) {
+            this.sequence = sequence;
+            this.subscription = subscription;
+            this.listener = listener;
+        }
+    }
+
+    private static final Route[] NO_ROUTES = new Route[0];
+
+    private static final class Index {
+        private final Map<String, Route[]> byGroup = new HashMap<>();
+
+        private final Map<String, Route[]> bySender = new HashMap<>();
+
+        private final Map<String, Route[]> byBot = new HashMap<>();
+
+        private final Map<MessageType, Route[]> byType = new EnumMap<>(MessageType.class);
+
+        private final Route[] any;
+
+        private final int size;
+
+        private Index(final List<Route> routes) {
+            final Map<String, List<Route>> groups = new HashMap<>();
+            final Map<String, List<Route>> senders = new HashMap<>();
+            final Map<String, List<Route>> bots = new HashMap<>();
+            final Map<MessageType, List<Route>> types = new EnumMap<>(MessageType.class);
+            final List<Route> unfiltered = new ArrayList<>();
+            for (final Route route : routes) {
+                final WickrSubscription s = route.subscription;
+                if (s.getGroupId() != null) {
+                    groups.computeIfAbsent(s.getGroupId(), k -> new ArrayList<>()).add(route);
+                } else if (s.getSender() != null) {
+                    senders.computeIfAbsent(s.getSender(), k -> new ArrayList<>()).add(route);
+                } else if (s.getBot() != null) {
+                    bots.computeIfAbsent(s.getBot(), k -> new ArrayList<>()).add(route);
+                } else if (s.getTypes() != null) {
+                    for (final MessageType type : s.getTypes()) {
+                        types.computeIfAbsent(type, k -> new ArrayList<>()).add(route);
+                    }
+                } else {
+                    unfiltered.add(route);
+                }
+            }
+            groups.forEach((k, v) -> this.byGroup.put(k, v.toArray(NO_ROUTES)));
+            senders.forEach((k, v) -> this.bySender.put(k, v.toArray(NO_ROUTES)));
+            bots.forEach((k, v) -> this.byBot.put(k, v.toArray(NO_ROUTES)));
+            types.forEach((k, v) -> this.byType.put(k, v.toArray(NO_ROUTES)));
+            this.any = unfiltered.toArray(NO_ROUTES);
+            this.size = routes.size();
+        }
+
+        private static Route[] lookup(final Map<?, Route[]> index, final Object key) {
+            if (null == key || index.isEmpty()) {
+                return NO_ROUTES;
+            }
+            final Route[] routes = index.get(key);
+            return routes != null ? routes : NO_ROUTES;
+        }
+    }
+
+    private final List<Route> routes = new ArrayList<>();
+
+    private long nextSequence = 0;
+
+    private volatile Index index = new Index(Collections.emptyList());
+
+    public synchronized void register(final WickrListener listener, final WickrSubscription subscription) {
+        if (null == listener) {
+            throw new IllegalArgumentException("Listener cannot be null.");
+        }
+        if (null == subscription) {
+            throw new IllegalArgumentException("Subscription cannot be null.");
+        }
+        this.routes.add(new Route(this.nextSequence++, subscription, listener));
+        this.index = new Index(this.routes);
+    }
+
+    public synchronized boolean unregister(final WickrListener listener) {
+        final boolean removed = this.routes.removeIf(route -> route.listener.equals(listener));
+        if (removed) {
+            this.index = new Index(this.routes);
+        }
+        return removed;
+    }
+
+    public int size() {
+        return this.index.size;
+    }
+
+    /**
+     * the number of events passed to the listener, including those it failed on
+     */
+    public synchronized long getProcessedCount(final WickrListener listener) {
+        long count = 0;
+        for (final Route route : this.routes) {
+            if (route.listener.equals(listener)) {
+                count += route.processed.get();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * the number of events the listener threw on
+     */
+    public synchronized long getFailedCount(final WickrListener listener) {
+        long count = 0;
+        for (final Route route : this.routes) {
+            if (route.listener.equals(listener)) {
+                count += route.failed.get();
+            }
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return 0 == this.index.size;
+    }
+
+    /**
+     * calls every listener subscribed to the event
+     *
+     * @return the number of listeners notified
+     */
+    public int route(final WickrEvent event) {
+        if (null == event || null == event.getMessage()) {
+            return 0;
+        }
+        final Index current = this.index;
+        if (0 == current.size) {
+            return 0;
+        }
+        final Message message = event.getMessage();
+        final Route[] groupRoutes = Index.lookup(current.byGroup, message.getGroupId());
+        final Route[] senderRoutes = Index.lookup(current.bySender, message.getSender());
+        final Route[] botRoutes = Index.lookup(current.byBot, event.getBot() != null ? event.getBot().getUser() : null);
+        final Route[] typeRoutes = Index.lookup(current.byType, current.byType.isEmpty() ? null : message.getMessageType());
+        final Route[] anyRoutes = current.any;
+
+        // merge the candidate lists, each already in registration order
+        int g = 0, s = 0, b = 0, t = 0, a = 0;
+        int notified = 0;
+        while (true) {
+            Route next = null;
+            if (g < groupRoutes.length) {
+                next = groupRoutes[g];
+            }
+            if (s < senderRoutes.length && (null == next || senderRoutes[s].sequence < next.sequence)) {
+                next = senderRoutes[s];
+            }
+            if (b < botRoutes.length && (null == next || botRoutes[b].sequence < next.sequence)) {
+                next = botRoutes[b];
+            }
+            if (t < typeRoutes.length && (null == next || typeRoutes[t].sequence < next.sequence)) {
+                next = typeRoutes[t];
+            }
+            if (a < anyRoutes.length && (null == next || anyRoutes[a].sequence < next.sequence)) {
+                next = anyRoutes[a];
+            }
+            if (null == next) {
+                return notified;
+            }
+            if (g < groupRoutes.length && next == groupRoutes[g]) {
+                g++;
+            } else if (s < senderRoutes.length && next == senderRoutes[s]) {
+                s++;
+            } else if (b < botRoutes.length && next == botRoutes[b]) {
+                b++;
+            } else if (t < typeRoutes.length && next == typeRoutes[t]) {
+                t++;
+            } else {
+                a++;
+            }
+            if (next.subscription.matches(event.getBot(), message)) {
+                try {
+                    next.listener.messageReceived(event.getBot(), message);
+                } catch (final Exception e) {
+                    next.failed.incrementAndGet();
+                    logger.warn("Listener [" + next.listener + "] failed to process message from bot [" + event.getBot() + "].", e);
+                }
+                next.processed.incrementAndGet();
+                notified++;
+            }
+        }
+    }
+}
@@ -56,6 +56,78 @@ public class Message {
         return new Message(attachment, null, groupId);
     }
 
+    /**
+     * true when the two messages are control messages of the same type, and so can be combined with coalesceControl
+     */
+    public static boolean canCoalesceControl(final Message earlier, final Message later) {
+        if (null == earlier || null == later || !earlier.hasControl() || !later.hasControl()) {
+            return false;
+        }
+        return null != earlier.messageType && null != later.messageType && earlier.messageType.intValue() == later.messageType.intValue();
+    }
+
+    /**
+     * combine two control messages of the same type for the same room into one net change
+     * <p>
+     * lists named added* and removed* are paired, so a value added and then removed only appears as removed, and
+     * a value removed and then added only appears as added. other lists are snapshots and the later one wins.
+     * change masks are combined, any other value takes the later value.
+     */
+    public static Message coalesceControl(final Message earlier, final Message later) {
+        if (!canCoalesceControl(earlier, later)) {
+            throw new IllegalArgumentException("Only control messages of the same type can be coalesced.");
+        }
+        final Message merged = new Message(later);
+        final Map<String, Object> control = new LinkedHashMap<>(earlier.control);
+        for (final Map.Entry<String, Object> entry : later.control.entrySet()) {
+            final String key = entry.getKey();
+            final Object previous = control.get(key);
+            final Object next = entry.getValue();
+            if (isChangeList(key) && previous instanceof Collection && next instanceof Collection) {
+                final Set<Object> values = new LinkedHashSet<>((Collection<?>) previous);
+                values.addAll((Collection<?>) next);
+                control.put(key, new ArrayList<>(values));
+            } else if (isChangeMask(key) && isIntegral(previous) && isIntegral(next)) {
+                final long mask = ((Number) previous).longValue() | ((Number) next).longValue();
+                control.put(key, previous instanceof Long || next instanceof Long ? (Object) mask : (Object) (int) mask);
+            } else {
+                control.put(key, next);
+            }
+        }
+        // a later change cancels the opposite change made earlier
+        for (final Map.Entry<String, Object> entry : later.control.entrySet()) {
+            final String opposite = oppositeChangeList(entry.getKey());
+            if (opposite != null && entry.getValue() instanceof Collection && control.get(opposite) instanceof Collection) {
+                final List<Object> values = new ArrayList<>((Collection<?>) control.get(opposite));
+                values.removeAll((Collection<?>) entry.getValue());
+                control.put(opposite, values);
+            }
+        }
+        merged.control = control;
+        return merged;
+    }
+
+    private static boolean isChangeList(final String key) {
+        return oppositeChangeList(key) != null;
+    }
+
+    private static String oppositeChangeList(final String key) {
+        if (key.regionMatches(true, 0, "added", 0, 5)) {
+            return (Character.isUpperCase(key.charAt(0)) ? "Removed" : "removed") + key.substring(5);
+        } else if (key.regionMatches(true, 0, "removed", 0, 7)) {
+            return (Character.isUpperCase(key.charAt(0)) ? "Added" : "added") + key.substring(7);
+        }
+        return null;
+    }
+
+    private static boolean isChangeMask(final String key) {
+        return key.toLowerCase(Locale.ROOT).endsWith("mask");
+    }
+
+    private static boolean isIntegral(final Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
     @JsonProperty("message_id")
     private String messageId;
 
@@ -108,6 +180,21 @@ public class Message {
         this.attachment = file;
     }
 
+    private Message(final Message other) {
+        this.messageId = other.messageId;
+        this.message = other.message;
+        this.attachment = other.attachment;
+        this.timeSentMsec = other.timeSentMsec;
+        this.messageType = other.messageType;
+        this.receiver = other.receiver;
+        this.sender = other.sender;
+        this.displayableTimeSent = other.displayableTimeSent;
+        this.displayableTimeToLive = other.displayableTimeToLive;
+        this.groupId = other.groupId;
+        this.users = other.users;
+        this.control = other.control;
+    }
+
     @Deprecated
     public Message() {
 
@@ -139,6 +226,13 @@ public class Message {
         return null != this.control && !this.control.isEmpty();
     }
 
+    public Map<String, Object> getControl() {
+        if (null == this.control) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(this.control);
+    }
+
     public Number getTimeSentMilliseconds() {
         return timeSentMsec;
     }
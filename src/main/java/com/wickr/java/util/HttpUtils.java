@@ -26,120 +26,339 @@
 package com.wickr.java.util;
 
 import com.wickr.java.WickrSSL;
-import org.apache.commons.io.IOUtils;
-import org.apache.hc.client5.http.HttpRequestRetryStrategy;
+import com.wickr.java.http.WickrAuthentication;
+import com.wickr.java.http.WickrHttpTransport;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequests;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.client5.http.auth.AuthScheme;
 import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.entity.mime.AbstractContentBody;
+import org.apache.hc.client5.http.entity.mime.ContentBody;
+import org.apache.hc.client5.http.entity.mime.InputStreamBody;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
-import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
-import org.apache.hc.client5.http.io.HttpClientConnectionManager;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
-import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
-import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
-import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
-import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
-import org.apache.hc.client5.http.utils.DateUtils;
-import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.*;
-import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
-import org.apache.hc.core5.http.message.BasicHeader;
-import org.apache.hc.core5.http.protocol.HttpContext;
-import org.apache.hc.core5.io.CloseMode;
-import org.apache.hc.core5.ssl.SSLContexts;
-import org.apache.hc.core5.ssl.TrustStrategy;
-import org.apache.hc.core5.util.TimeValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLException;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
-import java.io.InterruptedIOException;
-import java.net.ConnectException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URL;
-import java.net.UnknownHostException;
-import java.security.KeyManagementException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.cert.CertificateException;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * common set of http utilities
+ * <p>
+ * requests run on the given transport, or on a transport shared by the jvm when none is given
  *
  * @date 3/14/21.
  */
 public class HttpUtils {
 
-    public static <T> String postJson(final URI target, final T entity, final AuthScheme authentication) throws IOException, HttpException {
+    public static <T> String postJson(final WickrHttpTransport transport, final URI target, final T entity, final AuthScheme authentication) throws IOException, HttpException {
         final String json = JsonUtils.fromEntity(entity);
-        return postJson(target, json, authentication);
+        return postJson(transport, target, json, authentication);
     }
 
-    public static String postJson(final URI target, final String json, final AuthScheme authentication) throws IOException, HttpException {
+    public static String postJson(final WickrHttpTransport transport, final URI target, final String json, final AuthScheme authentication) throws IOException, HttpException {
         final HttpPost post = new HttpPost(target);
         post.addHeader("Content-Type", "application/json");
         post.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON, false));
-        return readResponseAndCheckStatus(client().execute(post, contextFor(target, authentication)));
+        return readResponseAndCheckStatus(transportFor(transport).getClient().execute(post, contextFor(post, target, authentication)));
     }
 
-    public static String post(final URI target, final AuthScheme authentication) throws IOException, HttpException {
+    public static String post(final WickrHttpTransport transport, final URI target, final AuthScheme authentication) throws IOException, HttpException {
         final HttpPost post = new HttpPost(target);
-        return readResponseAndCheckStatus(client().execute(post, contextFor(target, authentication)));
+        return readResponseAndCheckStatus(transportFor(transport).getClient().execute(post, contextFor(post, target, authentication)));
     }
 
-    public static String postForm(final URI target, final Map<String, Object> formData, final AuthScheme authentication) throws IOException, HttpException {
+    /**
+     * post a multipart form, binary values are streamed into the request rather than read onto the heap first
+     * <p>
+     * values may be a file, path, byte buffer, url, uri, content body or text
+     */
+    public static String postForm(final WickrHttpTransport transport, final URI target, final Map<String, Object> formData, final AuthScheme authentication) throws IOException, HttpException {
         final HttpPost post = new HttpPost(target);
-        MultipartEntityBuilder multipartBuilder = MultipartEntityBuilder.create();
-        for (final Map.Entry<String, Object> entry : formData.entrySet()) {
-            final String name = entry.getKey();
-            final Object value = entry.getValue();
-            if (value instanceof File) {
-                multipartBuilder.addBinaryBody(name, (File) value);
-            } else if (value instanceof URL) {
-                multipartBuilder.addBinaryBody(name, IOUtils.toByteArray((URL) value));
-            } else if (value instanceof URI) {
-                multipartBuilder.addBinaryBody(name, IOUtils.toByteArray((URI) value));
-            } else if (value instanceof CharSequence) {
-                multipartBuilder.addTextBody(name, value.toString(), ContentType.TEXT_PLAIN);
-            } else {
-                throw new IllegalStateException("Unexpected form type [" + value.getClass() + "], value [" + value + "].");
+        final List<Closeable> opened = new ArrayList<>();
+        try {
+            MultipartEntityBuilder multipartBuilder = MultipartEntityBuilder.create();
+            for (final Map.Entry<String, Object> entry : formData.entrySet()) {
+                final String name = entry.getKey();
+                final Object value = entry.getValue();
+                if (value instanceof File) {
+                    multipartBuilder.addPart(name, pathBody(((File) value).toPath()));
+                } else if (value instanceof Path) {
+                    multipartBuilder.addPart(name, pathBody((Path) value));
+                } else if (value instanceof ByteBuffer) {
+                    multipartBuilder.addPart(name, bufferBody((ByteBuffer) value, null));
+                } else if (value instanceof URL) {
+                    multipartBuilder.addPart(name, urlBody((URL) value, opened));
+                } else if (value instanceof URI) {
+                    multipartBuilder.addPart(name, urlBody(((URI) value).toURL(), opened));
+                } else if (value instanceof ContentBody) {
+                    multipartBuilder.addPart(name, (ContentBody) value);
+                } else if (value instanceof CharSequence) {
+                    multipartBuilder.addTextBody(name, value.toString(), ContentType.TEXT_PLAIN);
+                } else {
+                    throw new IllegalStateException("Unexpected form type [" + value.getClass() + "], value [" + value + "].");
+                }
+            }
+            post.setEntity(multipartBuilder.build());
+            return readResponseAndCheckStatus(transportFor(transport).getClient().execute(post, contextFor(post, target, authentication)));
+        } finally {
+            for (final Closeable closeable : opened) {
+                closeable.close();
             }
         }
-        post.setEntity(multipartBuilder.build());
-        return readResponseAndCheckStatus(client().execute(post, contextFor(target, authentication)));
     }
 
-    public static <T> T getJson(final URI target, final Class<T> clazz, final AuthScheme authentication) throws IOException, HttpException {
-        final String json = get(target, authentication);
-        if (null == json || json.isBlank()) {
-            return null;
+    /**
+     * a form body sent from the file through its channel, the file is opened again if the request is repeated
+     */
+    public static ContentBody pathBody(final Path path) throws IOException {
+        return new PathBody(path, ContentType.DEFAULT_BINARY, Files.size(path));
+    }
+
+    /**
+     * a form body sent from the remaining bytes of the buffer, the buffer position is left unchanged
+     */
+    public static ContentBody bufferBody(final ByteBuffer buffer, final String filename) {
+        return new ByteBufferBody(buffer, ContentType.DEFAULT_BINARY, filename);
+    }
+
+    /**
+     * a form body sent from exactly length bytes of the stream, which can only be sent once
+     */
+    public static ContentBody streamBody(final InputStream input, final long length, final String filename) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Stream length must be known.");
         }
-        return JsonUtils.toEntity(json, clazz);
+        return new KnownLengthStreamBody(input, ContentType.DEFAULT_BINARY, filename, length);
     }
 
-    public static String get(final URI target, final AuthScheme authentication) throws IOException, HttpException {
+    private static ContentBody urlBody(final URL url, final List<Closeable> opened) throws IOException {
+        final URLConnection connection = url.openConnection();
+        final InputStream input = connection.getInputStream();
+        opened.add(input);
+        final long length = connection.getContentLengthLong();
+        if (length < 0) {
+            // unknown length, sent chunked
+            return new InputStreamBody(input, ContentType.DEFAULT_BINARY);
+        }
+        return new KnownLengthStreamBody(input, ContentType.DEFAULT_BINARY, null, length);
+    }
+
+    /**
+     * check the response status, then read the entity straight from the response stream
+     */
+    public static <T> T getJson(final WickrHttpTransport transport, final URI target, final Class<T> clazz, final AuthScheme authentication) throws IOException, HttpException {
+        return getStream(transport, target, authentication, (input) -> JsonUtils.toEntity(input, clazz));
+    }
+
+    /**
+     * check the response status, then read the entity list straight from the response stream
+     */
+    public static <T> List<T> getJsonList(final WickrHttpTransport transport, final URI target, final Class<T> clazz, final AuthScheme authentication) throws IOException, HttpException {
+        return getStream(transport, target, authentication, (input) -> JsonUtils.toEntityList(input, clazz));
+    }
+
+    /**
+     * a handler reading the body of a successful response as a stream
+     */
+    public interface ResponseStreamHandler<T> {
+        T handle(InputStream input) throws IOException;
+    }
+
+    public static <T> T getStream(final WickrHttpTransport transport, final URI target, final AuthScheme authentication, final ResponseStreamHandler<T> handler) throws IOException, HttpException {
         final HttpGet get = new HttpGet(target);
-        return readResponseAndCheckStatus(client().execute(get, contextFor(target, authentication)));
+        try (final CloseableHttpResponse response = transportFor(transport).getClient().execute(get, contextFor(get, target, authentication))) {
+            final HttpEntity entity = response.getEntity();
+            try {
+                checkStatus(response);
+                try (final InputStream input = entity != null ? entity.getContent() : InputStream.nullInputStream()) {
+                    return handler.handle(input);
+                }
+            } finally {
+                EntityUtils.consume(entity);
+            }
+        }
     }
 
-    public static String delete(final URI target, final AuthScheme authentication) throws IOException, HttpException {
+    public static String get(final WickrHttpTransport transport, final URI target, final AuthScheme authentication) throws IOException, HttpException {
+        final HttpGet get = new HttpGet(target);
+        return readResponseAndCheckStatus(transportFor(transport).getClient().execute(get, contextFor(get, target, authentication)));
+    }
+
+    public static String delete(final WickrHttpTransport transport, final URI target, final AuthScheme authentication) throws IOException, HttpException {
         final HttpDelete get = new HttpDelete(target);
-        return readResponseAndCheckStatus(client().execute(get, contextFor(target, authentication)));
+        return readResponseAndCheckStatus(transportFor(transport).getClient().execute(get, contextFor(get, target, authentication)));
+    }
+
+    public static CompletableFuture<String> getAsync(final WickrHttpTransport transport, final URI target, final AuthScheme authentication) {
+        return executeAsync(transport, SimpleHttpRequests.get(target), target, authentication);
+    }
+
+    public static <T> CompletableFuture<T> getJsonAsync(final WickrHttpTransport transport, final URI target, final Class<T> clazz, final AuthScheme authentication) {
+        return getAsync(transport, target, authentication).thenApply(json -> {
+            if (null == json || json.isBlank()) {
+                return null;
+            }
+            try {
+                return JsonUtils.toEntity(json, clazz);
+            } catch (final IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    public static CompletableFuture<String> deleteAsync(final WickrHttpTransport transport, final URI target, final AuthScheme authentication) {
+        return executeAsync(transport, SimpleHttpRequests.delete(target), target, authentication);
+    }
+
+    public static CompletableFuture<String> postAsync(final WickrHttpTransport transport, final URI target, final AuthScheme authentication) {
+        return executeAsync(transport, SimpleHttpRequests.post(target), target, authentication);
+    }
+
+    public static <T> CompletableFuture<String> postJsonAsync(final WickrHttpTransport transport, final URI target, final T entity, final AuthScheme authentication) {
+        final String json;
+        try {
+            json = JsonUtils.fromEntity(entity);
+        } catch (final IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return postJsonAsync(transport, target, json, authentication);
+    }
+
+    public static CompletableFuture<String> postJsonAsync(final WickrHttpTransport transport, final URI target, final String json, final AuthScheme authentication) {
+        final SimpleHttpRequest post = SimpleHttpRequests.post(target);
+        post.setBody(json, ContentType.APPLICATION_JSON);
+        return executeAsync(transport, post, target, authentication);
+    }
+
+    /**
+     * execute the request on the non-blocking client, completing with the response body once the status is checked
+     */
+    private static CompletableFuture<String> executeAsync(final WickrHttpTransport transport, final SimpleHttpRequest request, final URI target, final AuthScheme authentication) {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        try {
+            transportFor(transport).getAsyncClient().execute(request, contextFor(request, target, authentication), new FutureCallback<>() {
+                @Override
+                public void completed(final SimpleHttpResponse response) {
+                    try {
+                        checkStatus(response);
+                        future.complete(response.getBodyText());
+                    } catch (final IOException e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void failed(final Exception e) {
+                    future.completeExceptionally(e);
+                }
+
+                @Override
+                public void cancelled() {
+                    future.cancel(false);
+                }
+            });
+        } catch (final RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * @deprecated use {@link #postJson(WickrHttpTransport, URI, Object, AuthScheme)}, this runs on the shared transport
+     */
+    @Deprecated
+    public static <T> String postJson(final URI target, final T entity, final AuthScheme authentication) throws IOException, HttpException {
+        return postJson(null, target, entity, authentication);
+    }
+
+    /**
+     * @deprecated use {@link #postJson(WickrHttpTransport, URI, String, AuthScheme)}, this runs on the shared transport
+     */
+    @Deprecated
+    public static String postJson(final URI target, final String json, final AuthScheme authentication) throws IOException, HttpException {
+        return postJson(null, target, json, authentication);
+    }
+
+    /**
+     * @deprecated use {@link #post(WickrHttpTransport, URI, AuthScheme)}, this runs on the shared transport
+     */
+    @Deprecated
+    public static String post(final URI target, final AuthScheme authentication) throws IOException, HttpException {
+        return post(null, target, authentication);
     }
 
-    private static HttpClientContext contextFor(final URI target, final AuthScheme authentication) {
+    /**
+     * @deprecated use {@link #postForm(WickrHttpTransport, URI, Map, AuthScheme)}, this runs on the shared transport
+     */
+    @Deprecated
+    public static String postForm(final URI target, final Map<String, Object> formData, final AuthScheme authentication) throws IOException, HttpException {
+        return postForm(null, target, formData, authentication);
+    }
+
+    /**
+     * @deprecated use {@link #getJson(WickrHttpTransport, URI, Class, AuthScheme)}, this runs on the shared transport
+     */
+    @Deprecated
+    public static <T> T getJson(final URI target, final Class<T> clazz, final AuthScheme authentication) throws IOException, HttpException {
+        return getJson(null, target, clazz, authentication);
+    }
+
+    /**
+     * @deprecated use {@link #getStream(WickrHttpTransport, URI, AuthScheme, ResponseStreamHandler)}, this runs on the shared transport
+     */
+    @Deprecated
+    public static <T> T getStream(final URI target, final AuthScheme authentication, final ResponseStreamHandler<T> handler) throws IOException, HttpException {
+        return getStream(null, target, authentication, handler);
+    }
+
+    /**
+     * @deprecated use {@link #get(WickrHttpTransport, URI, AuthScheme)}, this runs on the shared transport
+     */
+    @Deprecated
+    public static String get(final URI target, final AuthScheme authentication) throws IOException, HttpException {
+        return get(null, target, authentication);
+    }
+
+    /**
+     * @deprecated use {@link #delete(WickrHttpTransport, URI, AuthScheme)}, this runs on the shared transport
+     */
+    @Deprecated
+    public static String delete(final URI target, final AuthScheme authentication) throws IOException, HttpException {
+        return delete(null, target, authentication);
+    }
+
+    private static HttpClientContext contextFor(final HttpRequest request, final URI target, final AuthScheme authentication) {
+        if (authentication instanceof WickrAuthentication) {
+            // the header is encoded once per bot, so skip the per-request host, context and auth exchange
+            request.setHeader(((WickrAuthentication) authentication).getAuthorizationHeader());
+            return null;
+        }
         // setup basic authentication for host
         final HttpHost host = new HttpHost(target.getScheme(), target.getHost(), target.getPort());
         final HttpClientContext localContext = HttpClientContext.create();
@@ -172,174 +391,163 @@ public class HttpUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(HttpUtils.class);
 
-    private static HttpClientConnectionManager connectionManager = null;
+    private static class PathBody extends AbstractContentBody {
+        private final Path path;
+
+        private final long length;
 
-    private static CloseableHttpClient httpClient = null;
+        private PathBody(final Path path, final ContentType contentType, final long length) {
+            super(contentType);
+            this.path = path;
+            this.length = length;
+        }
 
-    public static void shutdown() throws IOException {
-        if (httpClient != null) {
-            httpClient.close(CloseMode.GRACEFUL);
-            httpClient = null;
+        @Override
+        public String getFilename() {
+            final Path name = this.path.getFileName();
+            return name != null ? name.toString() : null;
         }
-        if (connectionManager != null) {
-            connectionManager.close(CloseMode.GRACEFUL);
-            connectionManager = null;
+
+        @Override
+        public long getContentLength() {
+            return this.length;
         }
-    }
 
-    public static void setupWithDefaults() throws IOException {
-        setup(WickrSSL.fromSystemProperties());
+        @Override
+        public void writeTo(final OutputStream out) throws IOException {
+            // let the channel move the bytes, the target channel is not closed since it wraps the request stream
+            final WritableByteChannel target = Channels.newChannel(out);
+            try (final FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+                long position = 0;
+                while (position < this.length) {
+                    final long sent = channel.transferTo(position, this.length - position, target);
+                    if (sent <= 0) {
+                        throw new IOException("File [" + this.path + "] ended after [" + position + "] of [" + this.length + "] bytes.");
+                    }
+                    position += sent;
+                }
+            }
+        }
     }
 
-    public static void setup(final WickrSSL ssl) throws IOException {
-        shutdown();
-        if (null == connectionManager) {
-            connectionManager = createManager(ssl);
+    private static class ByteBufferBody extends AbstractContentBody {
+        private final ByteBuffer buffer;
+
+        private final String filename;
+
+        private ByteBufferBody(final ByteBuffer buffer, final ContentType contentType, final String filename) {
+            super(contentType);
+            this.buffer = buffer;
+            this.filename = filename;
         }
-        if (null == httpClient) {
-            httpClient = HttpClients.custom()
-                    .setConnectionManager(connectionManager)
-                    .setUserAgent("wickrio-java")
-                    .setDefaultHeaders(Arrays.asList(
-                            new BasicHeader("Cache-Control", "no-cache, must-revalidate"),
-                            new BasicHeader("Pragma", "no-cache")))
-                    .setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy())
-                    .setRetryStrategy(new RetryingHttpRequestRetryStrategy(5, TimeValue.ofSeconds(2L)))
-                    .build();
-            HttpsURLConnection.setDefaultHostnameVerifier((hostname, session) -> true);
+
+        @Override
+        public String getFilename() {
+            return this.filename;
         }
-    }
 
-    private static ConnectionSocketFactory createSocketFactoryForSSL(final WickrSSL ssl) throws KeyStoreException, NoSuchAlgorithmException, KeyManagementException, CertificateException, IOException {
-        TrustStrategy acceptingTrustStrategy = (cert, authType) -> true;
-        final SSLContext sslContext;
-        if (ssl != null && ssl.hasKeystore()) {
-            sslContext = SSLContexts.custom()
-                    .setKeyStoreType(ssl.getKeystoreType())
-                    .loadTrustMaterial(ssl.getKeystoreURL(), ssl.getKeystorePassword(), acceptingTrustStrategy).build();
-        } else {
-            sslContext = SSLContexts.custom()
-                    .loadTrustMaterial(acceptingTrustStrategy).build();
+        @Override
+        public long getContentLength() {
+            return this.buffer.remaining();
         }
-        return new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE);
-    }
 
-    private static CloseableHttpClient client() {
-        if (null == httpClient) {
-            try {
-                setupWithDefaults();
-            } catch (final IOException e) {
-                throw new IllegalStateException("Unable to create default http client.", e);
+        @Override
+        public void writeTo(final OutputStream out) throws IOException {
+            final ByteBuffer remaining = this.buffer.duplicate();
+            final WritableByteChannel target = Channels.newChannel(out);
+            while (remaining.hasRemaining()) {
+                target.write(remaining);
             }
         }
-        return httpClient;
     }
 
-    private static HttpClientConnectionManager createManager(final WickrSSL ssl) throws IOException {
-        ConnectionSocketFactory sslFactory = null;
-        try {
-            sslFactory = createSocketFactoryForSSL(ssl);
-        } catch (CertificateException e) {
-            logger.warn("Unable to create SSL socket factory.", e);
-        } catch (NoSuchAlgorithmException e) {
-            logger.warn("Unable to create SSL socket factory.", e);
-        } catch (KeyStoreException e) {
-            logger.warn("Unable to create SSL socket factory.", e);
-        } catch (KeyManagementException e) {
-            logger.warn("Unable to create SSL socket factory.", e);
+    private static class KnownLengthStreamBody extends AbstractContentBody {
+        private final InputStream input;
+
+        private final String filename;
+
+        private final long length;
+
+        private boolean sent = false;
+
+        private KnownLengthStreamBody(final InputStream input, final ContentType contentType, final String filename, final long length) {
+            super(contentType);
+            this.input = input;
+            this.filename = filename;
+            this.length = length;
         }
-        final RegistryBuilder builder = RegistryBuilder.create()
-                .register("http", new PlainConnectionSocketFactory());
-        if (sslFactory != null) {
-            builder.register("https", sslFactory);
+
+        @Override
+        public String getFilename() {
+            return this.filename;
         }
-        final PoolingHttpClientConnectionManager mgr = new PoolingHttpClientConnectionManager(builder.build());
-        mgr.setMaxTotal(Integer.parseInt(System.getProperty("wickr.http.totalPoolSize", "12")));
-        mgr.setDefaultMaxPerRoute(Integer.parseInt(System.getProperty("wickr.http.maxPerRoute", "4")));
-        return mgr;
-    }
-
-    private static class RetryingHttpRequestRetryStrategy implements HttpRequestRetryStrategy {
-        private final int maxRetries;
-
-        private final TimeValue defaultRetryInterval;
-
-        private final Set<Class<? extends IOException>> nonRetriableIOExceptionClasses;
-
-        private final Set<Class<? extends IOException>> retriableIOExceptionClasses;
-
-        private final Set<Integer> retriableCodes;
-
-        public RetryingHttpRequestRetryStrategy(
-                final int maxRetries,
-                final TimeValue defaultRetryInterval) {
-            this.maxRetries = maxRetries;
-            this.defaultRetryInterval = defaultRetryInterval;
-            this.nonRetriableIOExceptionClasses = new HashSet<>(Arrays.asList(
-                    InterruptedIOException.class,
-                    UnknownHostException.class,
-                    ConnectException.class,
-                    ConnectionClosedException.class,
-                    SSLException.class));
-            this.retriableIOExceptionClasses = new HashSet<>(Arrays.asList(
-                    NoHttpResponseException.class));
-            this.retriableCodes = new HashSet<>(
-                    Arrays.asList(
-                            HttpStatus.SC_TOO_MANY_REQUESTS,
-                            HttpStatus.SC_SERVICE_UNAVAILABLE));
+
+        @Override
+        public long getContentLength() {
+            return this.length;
         }
 
         @Override
-        public boolean retryRequest(
-                final HttpRequest request,
-                final IOException exception,
-                final int execCount,
-                final HttpContext context) {
-            if (execCount > this.maxRetries) {
-                return false;
-            }
-            if (request instanceof CancellableDependency && ((CancellableDependency) request).isCancelled()) {
-                return false;
-            }
-            if (ExceptionUtils.isException(exception, this.nonRetriableIOExceptionClasses)) {
-                return false;
+        public void writeTo(final OutputStream out) throws IOException {
+            // the stream cannot be rewound, fail a retry rather than send a truncated body
+            if (this.sent) {
+                throw new IOException("Stream already sent, unable to repeat request.");
             }
-            if (ExceptionUtils.isException(exception, this.retriableIOExceptionClasses)) {
-                return true;
+            this.sent = true;
+            final byte[] chunk = new byte[8192];
+            long remaining = this.length;
+            while (remaining > 0) {
+                final int read = this.input.read(chunk, 0, (int) Math.min(chunk.length, remaining));
+                if (read < 0) {
+                    throw new IOException("Stream ended after [" + (this.length - remaining) + "] of [" + this.length + "] bytes.");
+                }
+                out.write(chunk, 0, read);
+                remaining -= read;
             }
-            return Method.isIdempotent(request.getMethod());
         }
+    }
 
-        @Override
-        public boolean retryRequest(
-                final HttpResponse response,
-                final int execCount,
-                final HttpContext context) {
-            return execCount <= this.maxRetries && retriableCodes.contains(response.getCode());
+    private static volatile WickrHttpTransport sharedTransport = null;
+
+    /**
+     * close the transport shared by bots not given one of their own
+     */
+    public static synchronized void shutdown() throws IOException {
+        if (sharedTransport != null) {
+            sharedTransport.shutdown();
+            sharedTransport = null;
         }
+    }
 
-        @Override
-        public TimeValue getRetryInterval(
-                final HttpResponse response,
-                final int execCount,
-                final HttpContext context) {
-            final Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
-            TimeValue retryAfter = null;
-            if (header != null) {
-                final String value = header.getValue();
+    public static void setupWithDefaults() throws IOException {
+        setup(WickrSSL.fromSystemProperties());
+    }
+
+    /**
+     * replace the transport shared by bots not given one of their own
+     */
+    public static synchronized void setup(final WickrSSL ssl) throws IOException {
+        shutdown();
+        sharedTransport = new WickrHttpTransport(ssl);
+    }
+
+    private static WickrHttpTransport transportFor(final WickrHttpTransport transport) {
+        if (transport != null) {
+            return transport;
+        }
+        final WickrHttpTransport shared = sharedTransport;
+        if (shared != null) {
+            return shared;
+        }
+        synchronized (HttpUtils.class) {
+            if (null == sharedTransport) {
                 try {
-                    retryAfter = TimeValue.ofSeconds(Long.parseLong(value));
-                } catch (final NumberFormatException ignore) {
-                    final Date retryAfterDate = DateUtils.parseDate(value);
-                    if (retryAfterDate != null) {
-                        retryAfter = TimeValue.ofMilliseconds(retryAfterDate.getTime() - System.currentTimeMillis());
-                    }
-                }
-                if (TimeValue.isPositive(retryAfter)) {
-                    return retryAfter;
+                    setupWithDefaults();
+                } catch (final IOException e) {
+                    throw new IllegalStateException("Unable to create default http client.", e);
                 }
             }
-            return this.defaultRetryInterval;
+            return sharedTransport;
         }
     }
 
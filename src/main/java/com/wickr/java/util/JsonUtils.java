@@ -27,18 +27,25 @@ package com.wickr.java.util;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.TreeNode;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class JsonUtils {
+    private static final Logger logger = LoggerFactory.getLogger(JsonUtils.class);
+
     private static final ObjectMapper defaultMapper = createMapper();
 
     public static <T> String fromEntity(final T entity) throws JsonProcessingException {
@@ -66,13 +73,11 @@ public class JsonUtils {
         return defaultMapper.readValue(json, clazz);
     }
 
+    /**
+     * parse the entity straight from the bytes of the stream, returns null when the stream is empty
+     */
     public static <T> T toEntity(final InputStream input, final Class<T> clazz) throws IOException {
-        if (null == input) {
-            return null;
-        }
-        try (final Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
-            return defaultMapper.readerFor(clazz).readValue(reader);
-        }
+        return readValue(input, defaultMapper.readerFor(clazz));
     }
 
     public static <T> T toEntity(final File file, final Class<T> clazz) throws IOException {
@@ -89,6 +94,67 @@ public class JsonUtils {
         return defaultMapper.readerForListOf(clazz).readValue(json);
     }
 
+    public static <T> List<T> toEntityList(final InputStream input, final Class<T> clazz) throws IOException {
+        return readValue(input, defaultMapper.readerForListOf(clazz));
+    }
+
+    private static <T> T readValue(final InputStream input, final ObjectReader reader) throws IOException {
+        if (null == input) {
+            return null;
+        }
+        try (final JsonParser parser = defaultMapper.getFactory().createParser(input)) {
+            if (null == parser.nextToken()) {
+                return null;
+            }
+            return reader.readValue(parser);
+        }
+    }
+
+    /**
+     * parse a json array from the stream one element at a time, passing each element to the consumer as soon as it
+     * is read; elements which cannot be mapped to the entity are skipped. returns the number of elements read,
+     * skipped ones included.
+     */
+    public static <T> int forEachInList(final InputStream input, final Class<T> clazz, final Consumer<? super T> consumer) throws IOException {
+        if (null == input) {
+            return 0;
+        }
+        try (final JsonParser parser = defaultMapper.getFactory().createParser(input)) {
+            final JsonToken start = parser.nextToken();
+            if (null == start) {
+                return 0;
+            } else if (start == JsonToken.START_OBJECT) {
+                // single value accepted as a list, counted even if skipped like an array element
+                acceptElement(parser, clazz, consumer);
+                return 1;
+            } else if (start != JsonToken.START_ARRAY) {
+                throw new IOException("Expected json array but found [" + start + "].");
+            }
+            int numRead = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                acceptElement(parser, clazz, consumer);
+                numRead++;
+            }
+            return numRead;
+        }
+    }
+
+    private static <T> boolean acceptElement(final JsonParser parser, final Class<T> clazz, final Consumer<? super T> consumer) throws IOException {
+        // read the complete element first, so a bad element does not leave the parser mid-object
+        final TreeNode tree = defaultMapper.readTree(parser);
+        final T entity;
+        try {
+            entity = defaultMapper.treeToValue(tree, clazz);
+        } catch (final JsonProcessingException e) {
+            logger.warn("Skipping json element which could not be read as [" + clazz.getSimpleName() + "].", e);
+            return false;
+        }
+        if (entity != null) {
+            consumer.accept(entity);
+        }
+        return true;
+    }
+
     public static String fromMap(final Map<String, ?> map) {
         if (null == map || map.isEmpty()) {
             return "{}";
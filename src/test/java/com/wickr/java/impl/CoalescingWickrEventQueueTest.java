@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.model.Message;
+import com.wickr.java.util.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoalescingWickrEventQueueTest {
+
+    private final WickrBot bot = WickrBot.createForExisting("bot");
+
+    private WickrEvent control(final int type, final String control) throws Exception {
+        return new WickrEvent(this.bot, JsonUtils.toEntity("{\"msgtype\": " + type + ", \"vgroupid\": \"room\", \"control\": " + control + "}", Message.class));
+    }
+
+    private WickrEvent text(final String text) {
+        return new WickrEvent(this.bot, Message.createGroupMessage(text, "room"));
+    }
+
+    private static List<WickrEvent> drain(final CoalescingWickrEventQueue queue) throws InterruptedException {
+        final List<WickrEvent> events = new ArrayList<>();
+        queue.drainTo(events, 100, 1, TimeUnit.MILLISECONDS);
+        return events;
+    }
+
+    @Test
+    public void mergesAddThenRemoveIntoNetChange() throws Exception {
+        final CoalescingWickrEventQueue queue = new CoalescingWickrEventQueue(new ArrayBlockingWickrEventQueue(), 60_000);
+        try {
+            assertTrue(queue.add(this.control(4002, "{\"addedMembers\": [\"alice\"]}")));
+            assertTrue(queue.add(this.control(4002, "{\"removedMembers\": [\"alice\"]}")));
+            assertEquals(1, queue.getCoalescedCount());
+            // any other event for the room releases the held change first
+            assertTrue(queue.add(this.text("hello")));
+            final List<WickrEvent> events = drain(queue);
+            assertEquals(2, events.size());
+            assertEquals(new ArrayList<>(), events.get(0).getMessage().getControl().get("addedMembers"));
+            assertEquals(Arrays.asList("alice"), events.get(0).getMessage().getControl().get("removedMembers"));
+            assertEquals("hello", events.get(1).getMessage().getMessage());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsMixedTypesSeparateAndInOrder() throws Exception {
+        final CoalescingWickrEventQueue queue = new CoalescingWickrEventQueue(new ArrayBlockingWickrEventQueue(), 60_000);
+        try {
+            queue.add(this.control(4002, "{\"addedMembers\": [\"alice\"]}"));
+            queue.add(this.control(4004, "{\"ttl\": 60}"));
+            queue.add(this.control(4004, "{\"ttl\": 120}"));
+            queue.add(this.control(4002, "{\"addedMembers\": [\"bob\"]}"));
+            assertEquals(3, queue.size());
+            assertEquals(1, queue.getCoalescedCount());
+            queue.add(this.text("hello"));
+            final List<WickrEvent> events = drain(queue);
+            assertEquals(4, events.size());
+            assertEquals(Arrays.asList("alice"), events.get(0).getMessage().getControl().get("addedMembers"));
+            assertEquals(120, events.get(1).getMessage().getControl().get("ttl"));
+            assertEquals(4004, events.get(1).getMessage().getMessageType().getCode());
+            assertEquals(Arrays.asList("bob"), events.get(2).getMessage().getControl().get("addedMembers"));
+            assertEquals("hello", events.get(3).getMessage().getMessage());
+        } finally {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    public void flushesHeldEventsAfterWindow() throws Exception {
+        final CoalescingWickrEventQueue queue = new CoalescingWickrEventQueue(new ArrayBlockingWickrEventQueue(), 20);
+        try {
+            queue.add(this.control(4002, "{\"addedMembers\": [\"alice\"]}"));
+            queue.add(this.control(4002, "{\"addedMembers\": [\"bob\"]}"));
+            final WickrEvent event = queue.remove(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertEquals(Arrays.asList("alice", "bob"), event.getMessage().getControl().get("addedMembers"));
+            assertTrue(queue.isEmpty());
+        } finally {
+            queue.shutdown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.model.Message;
+import com.wickr.java.util.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeduplicatingWickrEventQueueTest {
+
+    private static Message messageWithId(final int id) throws Exception {
+        return JsonUtils.toEntity("{\"message_id\":\"id" + id + "\",\"message\":\"m" + id + "\",\"vgroupid\":\"room\"}", Message.class);
+    }
+
+    @Test
+    public void removeShiftsCollidingKeysBack() {
+        // a table of 32 slots, keys below 2^32 land in the slot of their low five bits
+        final DeduplicatingWickrEventQueue.LongHashSet set = new DeduplicatingWickrEventQueue.LongHashSet(16);
+        final long[] keys = {1, 33, 65, 2, 31, 63, 95};
+        for (final long key : keys) {
+            set.add(key);
+        }
+        // 63 and 95 wrap around to the start of the table, behind 31
+        set.remove(33);
+        set.remove(31);
+        for (final long key : new long[]{1, 65, 2, 63, 95}) {
+            assertTrue(set.contains(key), "missing key " + key);
+        }
+        assertFalse(set.contains(33));
+        assertFalse(set.contains(31));
+
+        set.remove(1);
+        set.remove(63);
+        for (final long key : new long[]{65, 2, 95}) {
+            assertTrue(set.contains(key), "missing key " + key);
+        }
+        // removing a missing key leaves the set unchanged
+        set.remove(97);
+        assertTrue(set.contains(65));
+    }
+
+    @Test
+    public void keysExpireAfterTwoGenerations() throws Exception {
+        final ArrayBlockingWickrEventQueue delegate = new ArrayBlockingWickrEventQueue(100);
+        // four keys per window round up to generations of sixteen
+        final DeduplicatingWickrEventQueue queue = new DeduplicatingWickrEventQueue(delegate, 60000, 4, false);
+        final WickrBot bot = WickrBot.createForExisting("bot");
+        for (int i = 0; i < 17; i++) {
+            assertTrue(queue.add(bot, messageWithId(i)));
+        }
+        assertEquals(17, delegate.size());
+
+        // still held in the previous generation
+        assertTrue(queue.add(bot, messageWithId(0)));
+        assertEquals(1, queue.getDuplicateCount());
+
+        // fill the current generation, the next key rotates the first generation out
+        for (int i = 17; i < 33; i++) {
+            assertTrue(queue.add(bot, messageWithId(i)));
+        }
+        assertEquals(33, delegate.size());
+        assertTrue(queue.add(bot, messageWithId(0)));
+        assertEquals(34, delegate.size());
+        assertTrue(queue.add(bot, messageWithId(20)));
+        assertEquals(2, queue.getDuplicateCount());
+        queue.shutdown();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrExecutorFactory;
+import com.wickr.java.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListenerBulkheadTest {
+
+    @Test
+    public void fullQueueDropsInsteadOfBlocking() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final ListenerBulkhead bulkhead = new ListenerBulkhead("test", (bot, message) -> {
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 4, OverflowPolicy.dropNewest(), WickrExecutorFactory.platform());
+        try {
+            final WickrBot bot = WickrBot.createForExisting("bot");
+            final long start = System.nanoTime();
+            for (int i = 0; i < 100; i++) {
+                bulkhead.messageReceived(bot, Message.createGroupMessage("m" + i, "room"));
+            }
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            // one event with the listener, four queued
+            assertTrue(bulkhead.getDroppedCount() >= 95);
+        } finally {
+            release.countDown();
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    public void stopAccountsForEveryEvent() throws Exception {
+        final AtomicInteger received = new AtomicInteger();
+        final ListenerBulkhead bulkhead = new ListenerBulkhead("test", (bot, message) -> received.incrementAndGet(),
+                1024, OverflowPolicy.dropNewest(), WickrExecutorFactory.platform());
+        final WickrBot bot = WickrBot.createForExisting("bot");
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                bulkhead.messageReceived(bot, Message.createGroupMessage("m" + i, "room"));
+            }
+            // idle only once every event has been through the listener
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!bulkhead.isIdle() && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals((round + 1) * 50, received.get());
+        }
+        for (int i = 0; i < 500; i++) {
+            bulkhead.messageReceived(bot, Message.createGroupMessage("late" + i, "room"));
+        }
+        final List<?> undelivered = bulkhead.stop(5, TimeUnit.SECONDS);
+        assertEquals(1500, received.get() + undelivered.size());
+        assertEquals(0, bulkhead.getDroppedCount());
+    }
+}
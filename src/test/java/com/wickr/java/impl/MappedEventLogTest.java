@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedEventLogTest {
+
+    // two 20 byte records, with their 8 byte headers, fit each segment
+    private static final int SEGMENT_SIZE = 64;
+
+    private static byte[] record(final int i) {
+        return String.format("record-%013d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readAll(final MappedEventLog log) {
+        final List<String> records = new ArrayList<>();
+        for (MappedEventLog.Record record = log.read(0); record != null; record = log.read(record.getNextOffset())) {
+            records.add(new String(record.getData(), StandardCharsets.UTF_8));
+        }
+        return records;
+    }
+
+    private static void corrupt(final File directory, final long offset) throws Exception {
+        final long baseOffset = offset - offset % SEGMENT_SIZE;
+        final File segment = new File(directory, String.format("%020d", baseOffset) + ".log");
+        try (final RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            // flip a byte of the record data, past the length and checksum
+            final long position = offset - baseOffset + 8;
+            raf.seek(position);
+            final int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0xff);
+        }
+    }
+
+    @Test
+    public void recordsRollOverIntoNewSegments() throws Exception {
+        final File directory = Files.createTempDirectory("mapped-log").toFile();
+        try (final MappedEventLog log = new MappedEventLog(directory, SEGMENT_SIZE, false)) {
+            for (int i = 0; i < 5; i++) {
+                log.append(record(i));
+            }
+            assertEquals(3, log.getSegmentOffsets().size());
+            assertEquals(5, readAll(log).size());
+            assertEquals(new String(record(4), StandardCharsets.UTF_8), readAll(log).get(4));
+
+            assertEquals(1, log.truncateBefore(SEGMENT_SIZE));
+            assertEquals(SEGMENT_SIZE, log.getStartOffset());
+            assertEquals(3, readAll(log).size());
+        }
+    }
+
+    @Test
+    public void recordFailingChecksumIsSkipped() throws Exception {
+        final File directory = Files.createTempDirectory("mapped-log").toFile();
+        final List<Long> offsets = new ArrayList<>();
+        try (final MappedEventLog log = new MappedEventLog(directory, SEGMENT_SIZE, false)) {
+            for (int i = 0; i < 5; i++) {
+                offsets.add(log.append(record(i)));
+            }
+        }
+        corrupt(directory, offsets.get(1));
+
+        try (final MappedEventLog log = new MappedEventLog(directory, SEGMENT_SIZE, false)) {
+            final List<String> records = readAll(log);
+            assertEquals(4, records.size());
+            assertFalse(records.contains(new String(record(1), StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void tornWriteAtTheEndIsTruncatedOnOpen() throws Exception {
+        final File directory = Files.createTempDirectory("mapped-log").toFile();
+        final List<Long> offsets = new ArrayList<>();
+        try (final MappedEventLog log = new MappedEventLog(directory, SEGMENT_SIZE, false)) {
+            for (int i = 0; i < 5; i++) {
+                offsets.add(log.append(record(i)));
+            }
+        }
+        // the last record was only partly written before a crash
+        corrupt(directory, offsets.get(4));
+
+        try (final MappedEventLog log = new MappedEventLog(directory, SEGMENT_SIZE, false)) {
+            assertEquals((long) offsets.get(4), log.getEndOffset());
+            assertEquals((long) offsets.get(4), log.append(record(5)));
+            final List<String> records = readAll(log);
+            assertEquals(5, records.size());
+            assertEquals(new String(record(5), StandardCharsets.UTF_8), records.get(4));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileWickrEventQueueTest {
+
+    @Test
+    public void unacknowledgedEventsAreRedeliveredAfterReopening() throws Exception {
+        final File directory = Files.createTempDirectory("mapped-queue").toFile();
+        final WickrBot bot = WickrBot.createForExisting("bot");
+
+        final MappedFileWickrEventQueue queue = new MappedFileWickrEventQueue(directory, List.of(bot), 1024, false);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.add(bot, Message.createGroupMessage("m" + i, "room")));
+        }
+        final WickrEvent first = queue.remove(1, TimeUnit.SECONDS);
+        final WickrEvent second = queue.remove(1, TimeUnit.SECONDS);
+        final WickrEvent third = queue.remove(1, TimeUnit.SECONDS);
+        // acknowledged out of order, the position only moves past events acknowledged in log order
+        queue.acknowledge(first);
+        queue.acknowledge(third);
+        queue.shutdown();
+
+        final MappedFileWickrEventQueue reopened = new MappedFileWickrEventQueue(directory, List.of(bot), 1024, false);
+        try {
+            assertEquals("m1", reopened.remove(1, TimeUnit.SECONDS).getMessage().getMessage());
+            assertEquals("m2", reopened.remove(1, TimeUnit.SECONDS).getMessage().getMessage());
+            assertEquals("m3", reopened.remove(1, TimeUnit.SECONDS).getMessage().getMessage());
+            assertNull(reopened.remove(10, TimeUnit.MILLISECONDS));
+        } finally {
+            reopened.shutdown();
+        }
+        assertNotNull(second);
+    }
+}
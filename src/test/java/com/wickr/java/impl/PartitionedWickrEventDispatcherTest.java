@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedWickrEventDispatcherTest {
+
+    @Test
+    public void stopAccountsForEveryDispatchedEvent() throws Exception {
+        final AtomicInteger processed = new AtomicInteger();
+        final PartitionedWickrEventDispatcher dispatcher = new PartitionedWickrEventDispatcher(4, 4096, (event) -> processed.incrementAndGet());
+        final WickrBot bot = WickrBot.createForExisting("bot");
+        for (int i = 0; i < 2000; i++) {
+            dispatcher.dispatch(new WickrEvent(bot, Message.createGroupMessage("m" + i, "room" + (i % 16))));
+        }
+        final List<WickrEvent> undispatched = dispatcher.stop(5, TimeUnit.SECONDS);
+        assertEquals(2000, processed.get() + undispatched.size());
+        assertEquals(0, dispatcher.getPendingCount());
+    }
+
+    @Test
+    public void idleWorkersStopWithoutWaitingForTheDeadline() throws Exception {
+        final PartitionedWickrEventDispatcher dispatcher = new PartitionedWickrEventDispatcher(4, (event) -> {
+        });
+        final long start = System.nanoTime();
+        assertTrue(dispatcher.stop(30, TimeUnit.SECONDS).isEmpty());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+}
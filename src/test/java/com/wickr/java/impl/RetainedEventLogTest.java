@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrListener;
+import com.wickr.java.model.Message;
+import com.wickr.java.util.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetainedEventLogTest {
+
+    private static WickrEvent event(final String id, final long sentAt) throws Exception {
+        return new WickrEvent(null, JsonUtils.toEntity("{\"message_id\": \"" + id + "\", \"msg_ts\": " + sentAt + "}", Message.class));
+    }
+
+    @Test
+    public void replaysTimeRangeFromLaterSegment() throws Exception {
+        final File dir = Files.createTempDirectory("retained").toFile();
+        final RetainedEventLog log = new RetainedEventLog(dir, -1, TimeUnit.MILLISECONDS, 1024);
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(log.record(event("old" + i, System.currentTimeMillis() - 60_000)) >= 0);
+            }
+            Thread.sleep(20);
+            final long from = System.currentTimeMillis();
+            for (int i = 0; i < 100; i++) {
+                assertTrue(log.record(event("new" + i, System.currentTimeMillis())) >= 0);
+            }
+            final List<String> replayed = new ArrayList<>();
+            final WickrListener listener = (bot, message) -> replayed.add(message.getId());
+            final int count = log.replay(Instant.ofEpochMilli(from), Instant.now().plusSeconds(1), ReplaySpeed.maximum(), Collections.singletonList(listener));
+            assertEquals(100, count);
+            assertEquals("new0", replayed.get(0));
+            assertEquals("new99", replayed.get(99));
+            // offsets still replay everything
+            replayed.clear();
+            assertEquals(200, log.replay(log.getStartOffset(), Long.MAX_VALUE, ReplaySpeed.maximum(), Collections.singletonList(listener)));
+        } finally {
+            log.shutdown();
+        }
+    }
+}
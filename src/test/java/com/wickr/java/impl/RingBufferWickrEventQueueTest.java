@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferWickrEventQueueTest {
+
+    @Test
+    public void singleConsumerKeepsOrderAcrossWrap() throws Exception {
+        final RingBufferWickrEventQueue queue = new RingBufferWickrEventQueue(8);
+        final WickrBot bot = WickrBot.createForExisting("bot");
+        final List<Message> sent = new ArrayList<>();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 5; i++) {
+                final Message message = Message.createGroupMessage("m" + sent.size(), "room");
+                sent.add(message);
+                assertTrue(queue.tryAdd(bot, message));
+            }
+            for (int i = 0; i < 5; i++) {
+                final WickrEvent event = queue.remove(1, TimeUnit.SECONDS);
+                assertSame(sent.get(round * 5 + i), event.getMessage());
+            }
+        }
+        assertNull(queue.poll());
+        queue.shutdown();
+    }
+
+    @Test
+    public void fullBufferRejectsTryAdd() {
+        final RingBufferWickrEventQueue queue = new RingBufferWickrEventQueue(4);
+        final WickrBot bot = WickrBot.createForExisting("bot");
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.tryAdd(bot, Message.createGroupMessage("m" + i, "room")));
+        }
+        assertFalse(queue.tryAdd(bot, Message.createGroupMessage("m4", "room")));
+        assertNotNull(queue.poll());
+        assertTrue(queue.tryAdd(bot, Message.createGroupMessage("m4", "room")));
+        assertEquals(4, queue.size());
+        queue.shutdown();
+    }
+
+    @Test
+    public void multipleConsumersTakeEachEventOnceAcrossWrap() throws Exception {
+        final RingBufferWickrEventQueue queue = new RingBufferWickrEventQueue(8, RingBufferWickrEventQueue.WaitStrategy.YIELD, true);
+        final WickrBot bot = WickrBot.createForExisting("bot");
+        final int producers = 2;
+        final int perProducer = 5000;
+        final int total = producers * perProducer;
+        final Set<Message> received = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        final AtomicInteger removed = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(total);
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < 3; c++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (done.getCount() > 0) {
+                        final WickrEvent event = queue.remove(10, TimeUnit.MILLISECONDS);
+                        if (event != null) {
+                            assertNotNull(event.getMessage());
+                            received.add(event.getMessage());
+                            removed.incrementAndGet();
+                            done.countDown();
+                        }
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    queue.add(bot, Message.createGroupMessage(producer + "-" + i, "room"));
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        for (final Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        assertEquals(total, removed.get());
+        assertEquals(total, received.size());
+        assertEquals(0, queue.size());
+        queue.shutdown();
+    }
+}
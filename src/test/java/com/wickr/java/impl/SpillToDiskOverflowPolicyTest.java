@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpillToDiskOverflowPolicyTest {
+
+    private final WickrBot bot = WickrBot.createForExisting("bot");
+
+    private WickrEvent event(final int i) {
+        return new WickrEvent(this.bot, Message.createGroupMessage("m" + i, "room"));
+    }
+
+    @Test
+    public void deletesConsumedSegmentsUnderSustainedOverload() throws Exception {
+        final File dir = Files.createTempDirectory("spill").toFile();
+        final SpillToDiskOverflowPolicy policy = new SpillToDiskOverflowPolicy(new File(dir, "spill"), 1024);
+        final BlockingQueue<WickrEvent> queue = new ArrayBlockingQueue<>(8);
+        int next = 0;
+        int expected = 0;
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(policy.offer(queue, this.event(next++)));
+            }
+            // the queue never drains, so events stay on disk the whole time
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(policy.offer(queue, this.event(next++)));
+                assertEquals("m" + expected++, queue.take().getMessage().getMessage());
+                policy.refill(queue);
+                assertTrue(policy.getPendingCount() > 0);
+            }
+            assertTrue(policy.getSegmentCount() <= 20, "segments " + policy.getSegmentCount());
+            assertEquals(policy.getSegmentCount(), dir.listFiles().length);
+            while (!queue.isEmpty()) {
+                assertEquals("m" + expected++, queue.take().getMessage().getMessage());
+                policy.refill(queue);
+            }
+            assertEquals(next, expected);
+            assertEquals(0, policy.getDroppedCount());
+        } finally {
+            policy.shutdown();
+        }
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void tryOfferStaysBehindSpilledEvents() throws Exception {
+        final File dir = Files.createTempDirectory("spill").toFile();
+        final SpillToDiskOverflowPolicy policy = new SpillToDiskOverflowPolicy(new File(dir, "spill"));
+        final BlockingQueue<WickrEvent> queue = new ArrayBlockingQueue<>(4);
+        try {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(policy.offer(queue, this.event(i)));
+            }
+            assertEquals(6, policy.getPendingCount());
+            // take without refilling, leaving room in the queue while events are still on disk
+            assertEquals("m0", queue.take().getMessage().getMessage());
+            assertFalse(policy.tryOffer(queue, this.event(10)));
+            assertEquals(5, policy.getPendingCount());
+            int expected = 1;
+            while (!queue.isEmpty()) {
+                assertEquals("m" + expected++, queue.take().getMessage().getMessage());
+                policy.refill(queue);
+            }
+            assertEquals(10, expected);
+            assertTrue(policy.tryOffer(queue, this.event(10)));
+        } finally {
+            policy.shutdown();
+        }
+    }
+}
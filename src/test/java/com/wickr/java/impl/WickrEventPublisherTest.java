@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WickrEventPublisherTest {
+
+    private static class RecordingSubscriber implements Flow.Subscriber<WickrEvent> {
+        private final List<WickrEvent> received = new ArrayList<>();
+
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(final WickrEvent item) {
+            this.received.add(item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    @Test
+    public void eventIsDeliveredOnlyOnceOnNextReturns() throws Exception {
+        final WickrEventPublisher publisher = new WickrEventPublisher(4);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        final WickrEvent event = new WickrEvent(WickrBot.createForExisting("bot"), Message.createGroupMessage("m", "room"));
+        final CompletableFuture<Void> delivered = publisher.publish(event);
+        assertNotNull(delivered);
+        // buffered without demand is not delivered
+        assertFalse(delivered.isDone());
+
+        subscriber.subscription.request(1);
+        assertTrue(delivered.isDone());
+        assertSame(event, subscriber.received.get(0));
+        publisher.shutdown();
+    }
+
+    @Test
+    public void bufferedEventsAreReleasedOnCancel() throws Exception {
+        final WickrEventPublisher publisher = new WickrEventPublisher(4);
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        final CompletableFuture<Void> delivered = publisher.publish(new WickrEvent(WickrBot.createForExisting("bot"), Message.createGroupMessage("m", "room")));
+        subscriber.subscription.cancel();
+        assertTrue(delivered.isDone());
+        assertTrue(subscriber.received.isEmpty());
+        assertNull(publisher.publish(new WickrEvent(WickrBot.createForExisting("bot"), Message.createGroupMessage("n", "room"))));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.impl;
+
+import com.wickr.java.WickrBot;
+import com.wickr.java.WickrEvent;
+import com.wickr.java.WickrListener;
+import com.wickr.java.WickrSubscription;
+import com.wickr.java.model.Message;
+import com.wickr.java.model.MessageType;
+import com.wickr.java.util.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WickrEventRouterTest {
+
+    private static WickrEvent textFrom(final String sender, final String groupId) throws Exception {
+        final Message message = JsonUtils.toEntity("{\"msgtype\":1000,\"message\":\"hi\",\"sender\":\"" + sender + "\",\"vgroupid\":\"" + groupId + "\"}", Message.class);
+        return new WickrEvent(WickrBot.createForExisting("bot"), message);
+    }
+
+    @Test
+    public void listenersAreCalledInRegistrationOrderAcrossIndexes() throws Exception {
+        final WickrEventRouter router = new WickrEventRouter();
+        final List<String> calls = new ArrayList<>();
+        // interleave every kind of subscription, so each index holds listeners from different points in the order
+        router.register((bot, message) -> calls.add("type"), WickrSubscription.forTypes(MessageType.TEXT_MESSAGE));
+        router.register((bot, message) -> calls.add("group"), WickrSubscription.forGroup("room"));
+        router.register((bot, message) -> calls.add("all"), WickrSubscription.all());
+        router.register((bot, message) -> calls.add("bot"), WickrSubscription.forBot("bot"));
+        router.register((bot, message) -> calls.add("sender"), WickrSubscription.fromSender("alice"));
+        router.register((bot, message) -> calls.add("other-group"), WickrSubscription.forGroup("elsewhere"));
+        router.register((bot, message) -> calls.add("group-2"), WickrSubscription.forGroup("room"));
+        router.register((bot, message) -> calls.add("all-2"), WickrSubscription.all());
+
+        assertEquals(7, router.route(textFrom("alice", "room")));
+        assertEquals(List.of("type", "group", "all", "bot", "sender", "group-2", "all-2"), calls);
+
+        calls.clear();
+        assertEquals(5, router.route(textFrom("bob", "elsewhere")));
+        assertEquals(List.of("type", "all", "bot", "other-group", "all-2"), calls);
+    }
+
+    @Test
+    public void failingListenerDoesNotStopTheOthers() throws Exception {
+        final WickrEventRouter router = new WickrEventRouter();
+        final List<String> calls = new ArrayList<>();
+        final WickrListener failing = (bot, message) -> {
+            throw new IllegalStateException("boom");
+        };
+        router.register((bot, message) -> calls.add("first"), WickrSubscription.all());
+        router.register(failing, WickrSubscription.forGroup("room"));
+        router.register((bot, message) -> calls.add("last"), WickrSubscription.all());
+
+        assertEquals(3, router.route(textFrom("alice", "room")));
+        assertEquals(List.of("first", "last"), calls);
+        assertEquals(1, router.getFailedCount(failing));
+        assertEquals(1, router.getProcessedCount(failing));
+
+        assertTrue(router.unregister(failing));
+        calls.clear();
+        assertEquals(2, router.route(textFrom("alice", "room")));
+        assertEquals(List.of("first", "last"), calls);
+    }
+}
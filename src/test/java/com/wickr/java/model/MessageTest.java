@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package com.wickr.java.model;
+
+import com.wickr.java.util.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MessageTest {
+
+    static Message control(final int type, final String groupId, final String control) throws Exception {
+        return JsonUtils.toEntity("{\"msgtype\": " + type + ", \"vgroupid\": \"" + groupId + "\", \"control\": " + control + "}", Message.class);
+    }
+
+    @Test
+    public void memberAddedThenRemovedIsOnlyRemoved() throws Exception {
+        final Message added = control(4002, "room", "{\"addedMembers\": [\"alice\", \"bob\"]}");
+        final Message removed = control(4002, "room", "{\"removedMembers\": [\"alice\"]}");
+        final Message merged = Message.coalesceControl(added, removed);
+        assertEquals(Collections.singletonList("bob"), merged.getControl().get("addedMembers"));
+        assertEquals(Collections.singletonList("alice"), merged.getControl().get("removedMembers"));
+    }
+
+    @Test
+    public void memberRemovedThenAddedIsOnlyAdded() throws Exception {
+        final Message removed = control(4002, "room", "{\"removedMembers\": [\"alice\"]}");
+        final Message added = control(4002, "room", "{\"addedMembers\": [\"alice\"]}");
+        final Message merged = Message.coalesceControl(removed, added);
+        assertEquals(Collections.singletonList("alice"), merged.getControl().get("addedMembers"));
+        assertEquals(Collections.emptyList(), merged.getControl().get("removedMembers"));
+    }
+
+    @Test
+    public void repeatedAddsAreNotDuplicated() throws Exception {
+        final Message first = control(4002, "room", "{\"addedMembers\": [\"alice\"]}");
+        final Message second = control(4002, "room", "{\"addedMembers\": [\"alice\", \"bob\"]}");
+        assertEquals(Arrays.asList("alice", "bob"), Message.coalesceControl(first, second).getControl().get("addedMembers"));
+    }
+
+    @Test
+    public void snapshotsAreReplacedAndMasksCombined() throws Exception {
+        final Message first = control(4002, "room", "{\"members\": [\"alice\", \"bob\"], \"changemask\": 1, \"title\": \"one\"}");
+        final Message second = control(4002, "room", "{\"members\": [\"alice\", \"bob\", \"carol\"], \"changemask\": 4, \"title\": \"two\"}");
+        final Message merged = Message.coalesceControl(first, second);
+        assertEquals(Arrays.asList("alice", "bob", "carol"), merged.getControl().get("members"));
+        assertEquals(5, merged.getControl().get("changemask"));
+        assertEquals("two", merged.getControl().get("title"));
+    }
+
+    @Test
+    public void differentTypesAreNotCoalesced() throws Exception {
+        final Message members = control(4002, "room", "{\"addedMembers\": [\"alice\"]}");
+        final Message parameters = control(4004, "room", "{\"ttl\": 60}");
+        assertFalse(Message.canCoalesceControl(members, parameters));
+        assertThrows(IllegalArgumentException.class, () -> Message.coalesceControl(members, parameters));
+    }
+}
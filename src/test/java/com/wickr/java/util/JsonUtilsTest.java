@@ -0,0 +1,56 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+package com.wickr.java.util;
+
+import com.wickr.java.model.Message;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonUtilsTest {
+
+    @Test
+    public void forEachInListCountsSkippedElements() throws Exception {
+        final String json = "[{\"msgtype\":1000,\"message\":\"a\"},{\"msgtype\":{\"bad\":true}},{\"msgtype\":1000,\"message\":\"b\"}]";
+        final List<Message> messages = new ArrayList<>();
+        final int numRead = JsonUtils.forEachInList(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Message.class, messages::add);
+        assertEquals(3, numRead);
+        assertEquals(2, messages.size());
+    }
+
+    @Test
+    public void forEachInListCountsSkippedSingleElement() throws Exception {
+        final String json = "{\"msgtype\":{\"bad\":true}}";
+        final List<Message> messages = new ArrayList<>();
+        final int numRead = JsonUtils.forEachInList(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Message.class, messages::add);
+        assertEquals(1, numRead);
+        assertTrue(messages.isEmpty());
+    }
+}